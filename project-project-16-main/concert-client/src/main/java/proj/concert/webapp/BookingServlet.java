@@ -4,7 +4,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import proj.concert.common.dto.ConcertDTO;
-import proj.concert.common.dto.SeatDTO;
+import proj.concert.common.dto.SeatBitmapDTO;
 import proj.concert.webapp.util.AuthUtil;
 
 import javax.servlet.ServletException;
@@ -14,14 +14,11 @@ import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import javax.ws.rs.client.Client;
 import javax.ws.rs.client.ClientBuilder;
-import javax.ws.rs.core.GenericType;
 import java.io.IOException;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.Arrays;
-import java.util.List;
-import java.util.stream.Collectors;
 
 public class BookingServlet extends HttpServlet {
 
@@ -57,23 +54,16 @@ public class BookingServlet extends HttpServlet {
                 return;
             }
 
-            // Go get the already-booked seats from the web service, so we can mark them as such on the app.
-            List<SeatDTO> bookedSeats = wsClient.target(Config.WEB_SERVICE_URI + "/seats/" + FORMATTER.format(date) + "?status=Booked")
-                    .request().get(new GenericType<List<SeatDTO>>() {
-                    });
-            LOGGER.info("doGet(): bookedSeats size = " + bookedSeats.size());
-
-//             TEST
-//            bookedSeats = Arrays.asList(new SeatDTO("A1", null), new SeatDTO("G11", null), new SeatDTO("G12", null));
-
-            List<String> bookedSeatLabels = bookedSeats.stream().map(seat -> "\"" + seat.getLabel() + "\"").collect(Collectors.toList());
-            String seatLabelString = String.join(", ", bookedSeatLabels);
-            LOGGER.info("doGet(): seatLabelString = " + seatLabelString);
+            // Go get the taken seats from the web service, so we can mark them as such on the app. They come as a
+            // base64 bitmap of one bit per seat, which the page decodes itself.
+            SeatBitmapDTO seatBitmap = wsClient.target(Config.WEB_SERVICE_URI + "/seats/" + FORMATTER.format(date) + "/bitmap")
+                    .request().get(SeatBitmapDTO.class);
+            LOGGER.info("doGet(): seatBitmap = " + seatBitmap.getBitmap());
 
             // Add data to req attrs to be displayed in JSP
             req.setAttribute("concert", concert);
             req.setAttribute("concertDateString", FORMATTER.format(date));
-            req.setAttribute("bookedSeatLabels", seatLabelString);
+            req.setAttribute("seatBitmap", seatBitmap.getBitmap());
 
             // Go to JSP
             req.getRequestDispatcher("/WEB-INF/jsp/booking.jsp").forward(req, resp);
@@ -19,7 +19,7 @@
 
             <%-- All args for these JS functions are injected by JSP. --%>
             const seats = initSeatBookingPage(${concert.id}, "${concertDateString}");
-            SeatUI.toggleBookedByLabel(seats, ${bookedSeatLabels});
+            SeatUI.toggleBooked(...SeatData.getTakenSeats(seats, "${seatBitmap}"));
 
         });
     </script>
@@ -2,22 +2,66 @@ const WEB_URI = "/webservice/services/concert-service";
 
 export const FetchAPI = {
 
+    // The catalog lists carry ETags, so always revalidating lets the browser reuse its copy whenever the service
+    // answers 304.
     getConcertSummaries() {
-        return fetch(`${WEB_URI}/concerts/summaries`);
+        return fetch(`${WEB_URI}/concerts/summaries`, { cache: "no-cache" });
     },
 
     getConcerts() {
-        return fetch(`${WEB_URI}/concerts`);
+        return fetch(`${WEB_URI}/concerts`, { cache: "no-cache" });
     },
 
     getConcert(id) {
         return fetch(`${WEB_URI}/concerts/${id}`);
     },
 
+    /**
+     * Fetches all concerts a page at a time, yielding each page (an array of concerts) as it arrives.
+     * @param limit how many concerts to ask for per page
+     */
+    streamConcerts(limit = 50) {
+        return this.streamPages(`${WEB_URI}/concerts`, limit);
+    },
+
+    streamPerformers(limit = 50) {
+        return this.streamPages(`${WEB_URI}/performers`, limit);
+    },
+
+    streamBookings(limit = 50) {
+        return this.streamPages(`${WEB_URI}/bookings`, limit);
+    },
+
     makeBookingRequest(bookingRequest) {
         return this.post(`${WEB_URI}/bookings`, bookingRequest);
     },
 
+    /**
+     * Follows the service's "next" links through a paginated list. Only the cursor is taken from each link, as the
+     * link itself names the service's own address rather than the one we reach it through.
+     */
+    async* streamPages(url, limit) {
+        let after = null;
+        do {
+            const query = after === null ? `limit=${limit}` : `after=${after}&limit=${limit}`;
+            const response = await fetch(`${url}?${query}`, { credentials: "same-origin" });
+            if (!response.ok) {
+                throw new Error(`Fetching ${url} failed with status ${response.status}`);
+            }
+            yield await response.json();
+            after = this.nextCursor(response.headers.get("Link"));
+        } while (after !== null);
+    },
+
+    nextCursor(linkHeader) {
+        const next = linkHeader && linkHeader.split(",").find(link => /rel="?next"?/.test(link));
+        if (!next) {
+            return null;
+        }
+        const uri = next.substring(next.indexOf("<") + 1, next.indexOf(">"));
+        return new URL(uri, window.location.href).searchParams.get("after");
+    },
+
     post(url, body) {
         return fetch(url, {
             method: "POST",
@@ -14,6 +14,16 @@ export const SeatData = {
         return seats.filter(seat => labels.includes(seat.label));
     },
 
+    /**
+     * Returns the seats marked as taken in the given bitmap, as served by the web service's /seats/{date}/bitmap
+     * endpoint. The bitmap is base64 encoded, with one bit per seat in the same order as the seat data: bit j of byte i
+     * stands for seat 8i + j.
+     */
+    getTakenSeats(seats, bitmap) {
+        const bytes = atob(bitmap);
+        return seats.filter((seat, i) => (i >> 3) < bytes.length && (bytes.charCodeAt(i >> 3) & (1 << (i & 7))) !== 0);
+    },
+
     getHeldSeats(seats) {
         return seats.filter(seat => seat.isHeld);
     },
@@ -57,13 +57,13 @@ export function initSeatBookingPage(concertId, concertDate) {
             seatLabels: heldSeats.map(seat => seat.label)
         };
 
-        makeBookingRequest(bookingRequest);
+        makeBookingRequest(bookingRequest, seats, displayTotals);
     }
 
     return seats;
 }
 
-async function makeBookingRequest(bookingRequest) {
+async function makeBookingRequest(bookingRequest, seats, onSeatsChanged) {
     const modalsDiv = document.querySelector("#modals-here");
     try {
 
@@ -72,6 +72,18 @@ async function makeBookingRequest(bookingRequest) {
         if (response.status === 201) {
             Modal.displayAlertBox(modalsDiv, "Booking Success!", "Congratulations, you're going to the concert!", goToConcerts);
         }
+        else if (response.status === 403) {
+            // Someone beat us to some of the seats. The web service tells us which, and suggests others, so we can
+            // update the seat map in place rather than reloading it.
+            const conflict = await response.json();
+            applySeatConflict(seats, conflict);
+            onSeatsChanged();
+
+            const message = conflict.suggestedSeatLabels.length > 0
+                ? `Sorry, ${conflict.conflictingSeatLabels.join(", ")} just got booked. We've selected ${conflict.suggestedSeatLabels.join(", ")} instead - click Book! again to confirm.`
+                : `Sorry, ${conflict.conflictingSeatLabels.join(", ")} just got booked, and there are no similar seats left.`;
+            Modal.displayAlertBox(modalsDiv, "Seats Unavailable", message, null);
+        }
         else {
             Modal.displayAlertBox(modalsDiv, "Booking Error", `Booking error (status: ${response.status})`, goToConcerts);
         }
@@ -87,4 +99,16 @@ async function makeBookingRequest(bookingRequest) {
         window.location.replace("./Concerts");
     }
 
-}
\ No newline at end of file
+}
+
+/**
+ * Marks the seats from a conflict response as booked, and selects the suggested seats in their place.
+ */
+function applySeatConflict(seats, conflict) {
+    const conflictingSeats = SeatData.getSeatsByLabel(seats, ...conflict.conflictingSeatLabels);
+    SeatUI.toggleHeld(...conflictingSeats.filter(seat => seat.isHeld));
+    SeatUI.toggleBooked(...conflictingSeats.filter(seat => !seat.isBooked));
+
+    const suggestedSeats = SeatData.getSeatsByLabel(seats, ...conflict.suggestedSeatLabels);
+    SeatUI.toggleHeld(...suggestedSeats.filter(seat => !seat.isHeld));
+}
@@ -0,0 +1,67 @@
+package proj.concert.common.dto;
+
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import proj.concert.common.jackson.LocalDateTimeDeserializer;
+import proj.concert.common.jackson.LocalDateTimeSerializer;
+
+import java.time.LocalDateTime;
+
+/**
+ * Represents a request to book the best available adjacent seats, leaving the choice of seats to the web service.
+ * concertId   the id of the concert to be booked
+ * date        the date on which that concert is to be booked
+ * numSeats    how many adjacent seats are wanted
+ * priceBand   the name of the price band to book in, e.g. "Gold Seating"
+ */
+public class BestAvailableRequestDTO {
+
+    private long concertId;
+    private LocalDateTime date;
+    private int numSeats;
+    private String priceBand;
+
+    public BestAvailableRequestDTO() {
+    }
+
+    public BestAvailableRequestDTO(long concertId, LocalDateTime date, int numSeats, String priceBand) {
+        this.concertId = concertId;
+        this.date = date;
+        this.numSeats = numSeats;
+        this.priceBand = priceBand;
+    }
+
+    public long getConcertId() {
+        return concertId;
+    }
+
+    public void setConcertId(long concertId) {
+        this.concertId = concertId;
+    }
+
+    @JsonSerialize(using = LocalDateTimeSerializer.class)
+    @JsonDeserialize(using = LocalDateTimeDeserializer.class)
+    public LocalDateTime getDate() {
+        return date;
+    }
+
+    public void setDate(LocalDateTime date) {
+        this.date = date;
+    }
+
+    public int getNumSeats() {
+        return numSeats;
+    }
+
+    public void setNumSeats(int numSeats) {
+        this.numSeats = numSeats;
+    }
+
+    public String getPriceBand() {
+        return priceBand;
+    }
+
+    public void setPriceBand(String priceBand) {
+        this.priceBand = priceBand;
+    }
+}
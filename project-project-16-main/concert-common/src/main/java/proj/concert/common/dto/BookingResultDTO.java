@@ -0,0 +1,47 @@
+package proj.concert.common.dto;
+
+/**
+ * Represents the outcome of one booking request within a batch of bookings.
+ * index     the position of the booking request within the batch
+ * status    the HTTP status that the same request would have received had it been made on its own
+ * booking   the booking which was made, or null if the request failed
+ */
+public class BookingResultDTO {
+
+    private int index;
+    private int status;
+    private BookingDTO booking;
+
+    public BookingResultDTO() {
+    }
+
+    public BookingResultDTO(int index, int status, BookingDTO booking) {
+        this.index = index;
+        this.status = status;
+        this.booking = booking;
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public void setIndex(int index) {
+        this.index = index;
+    }
+
+    public int getStatus() {
+        return status;
+    }
+
+    public void setStatus(int status) {
+        this.status = status;
+    }
+
+    public BookingDTO getBooking() {
+        return booking;
+    }
+
+    public void setBooking(BookingDTO booking) {
+        this.booking = booking;
+    }
+}
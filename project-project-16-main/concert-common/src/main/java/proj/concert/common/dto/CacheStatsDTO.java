@@ -0,0 +1,91 @@
+package proj.concert.common.dto;
+
+/**
+ * Represents the statistics of one of the web service's in-process caches.
+ * name         the name of the cache
+ * size         how many entries the cache currently holds
+ * maxEntries   how many entries the cache may hold before the least recently used is evicted
+ * ttlSeconds   how long an entry may live in the cache
+ * hits         how many lookups were answered from the cache
+ * misses       how many lookups had to load their value
+ * evictions    how many entries were dropped for being too old or to make room
+ */
+public class CacheStatsDTO {
+
+    private String name;
+    private int size;
+    private int maxEntries;
+    private long ttlSeconds;
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    public CacheStatsDTO() {
+    }
+
+    public CacheStatsDTO(String name, int size, int maxEntries, long ttlSeconds, long hits, long misses, long evictions) {
+        this.name = name;
+        this.size = size;
+        this.maxEntries = maxEntries;
+        this.ttlSeconds = ttlSeconds;
+        this.hits = hits;
+        this.misses = misses;
+        this.evictions = evictions;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public void setSize(int size) {
+        this.size = size;
+    }
+
+    public int getMaxEntries() {
+        return maxEntries;
+    }
+
+    public void setMaxEntries(int maxEntries) {
+        this.maxEntries = maxEntries;
+    }
+
+    public long getTtlSeconds() {
+        return ttlSeconds;
+    }
+
+    public void setTtlSeconds(long ttlSeconds) {
+        this.ttlSeconds = ttlSeconds;
+    }
+
+    public long getHits() {
+        return hits;
+    }
+
+    public void setHits(long hits) {
+        this.hits = hits;
+    }
+
+    public long getMisses() {
+        return misses;
+    }
+
+    public void setMisses(long misses) {
+        this.misses = misses;
+    }
+
+    public long getEvictions() {
+        return evictions;
+    }
+
+    public void setEvictions(long evictions) {
+        this.evictions = evictions;
+    }
+}
@@ -0,0 +1,58 @@
+package proj.concert.common.dto;
+
+/**
+ * Represents how often concurrent identical reads shared a single load in the web service.
+ * name         the name of what is being loaded
+ * loads        how many loads were run
+ * coalesced    how many requests shared a load that was already running, instead of running their own
+ * inFlight     how many loads are running right now
+ */
+public class CoalescingStatsDTO {
+
+    private String name;
+    private long loads;
+    private long coalesced;
+    private int inFlight;
+
+    public CoalescingStatsDTO() {
+    }
+
+    public CoalescingStatsDTO(String name, long loads, long coalesced, int inFlight) {
+        this.name = name;
+        this.loads = loads;
+        this.coalesced = coalesced;
+        this.inFlight = inFlight;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public long getLoads() {
+        return loads;
+    }
+
+    public void setLoads(long loads) {
+        this.loads = loads;
+    }
+
+    public long getCoalesced() {
+        return coalesced;
+    }
+
+    public void setCoalesced(long coalesced) {
+        this.coalesced = coalesced;
+    }
+
+    public int getInFlight() {
+        return inFlight;
+    }
+
+    public void setInFlight(int inFlight) {
+        this.inFlight = inFlight;
+    }
+}
@@ -0,0 +1,114 @@
+package proj.concert.common.dto;
+
+/**
+ * Represents the state of the web service's database connection pool.
+ * maxSize          the most connections the pool will open at once
+ * active           how many connections are in use right now
+ * idle             how many open connections are waiting in the pool to be used
+ * pending          how many requests are waiting for a connection right now
+ * acquired         how many connections have been handed out
+ * timeouts         how many requests gave up waiting for a connection
+ * leaks            how many connections have been held for long enough to be reported as possible leaks
+ * totalWaitMillis  the total time requests have spent waiting for connections
+ * maxWaitMillis    the longest time a request has waited for a connection
+ */
+public class PoolStatsDTO {
+
+    private int maxSize;
+    private int active;
+    private int idle;
+    private int pending;
+    private long acquired;
+    private long timeouts;
+    private long leaks;
+    private long totalWaitMillis;
+    private long maxWaitMillis;
+
+    public PoolStatsDTO() {
+    }
+
+    public PoolStatsDTO(int maxSize, int active, int idle, int pending, long acquired, long timeouts, long leaks,
+                        long totalWaitMillis, long maxWaitMillis) {
+        this.maxSize = maxSize;
+        this.active = active;
+        this.idle = idle;
+        this.pending = pending;
+        this.acquired = acquired;
+        this.timeouts = timeouts;
+        this.leaks = leaks;
+        this.totalWaitMillis = totalWaitMillis;
+        this.maxWaitMillis = maxWaitMillis;
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    public void setMaxSize(int maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    public int getActive() {
+        return active;
+    }
+
+    public void setActive(int active) {
+        this.active = active;
+    }
+
+    public int getIdle() {
+        return idle;
+    }
+
+    public void setIdle(int idle) {
+        this.idle = idle;
+    }
+
+    public int getPending() {
+        return pending;
+    }
+
+    public void setPending(int pending) {
+        this.pending = pending;
+    }
+
+    public long getAcquired() {
+        return acquired;
+    }
+
+    public void setAcquired(long acquired) {
+        this.acquired = acquired;
+    }
+
+    public long getTimeouts() {
+        return timeouts;
+    }
+
+    public void setTimeouts(long timeouts) {
+        this.timeouts = timeouts;
+    }
+
+    public long getLeaks() {
+        return leaks;
+    }
+
+    public void setLeaks(long leaks) {
+        this.leaks = leaks;
+    }
+
+    public long getTotalWaitMillis() {
+        return totalWaitMillis;
+    }
+
+    public void setTotalWaitMillis(long totalWaitMillis) {
+        this.totalWaitMillis = totalWaitMillis;
+    }
+
+    public long getMaxWaitMillis() {
+        return maxWaitMillis;
+    }
+
+    public void setMaxWaitMillis(long maxWaitMillis) {
+        this.maxWaitMillis = maxWaitMillis;
+    }
+}
@@ -0,0 +1,124 @@
+package proj.concert.common.dto;
+
+/**
+ * Represents the web service's database activity since the database was last reset.
+ * statements        how many JDBC statements have been prepared
+ * queries           how many JPQL and native queries have been executed
+ * entityLoads       how many entities have been loaded from the database
+ * collectionFetches how many collections have been fetched by a separate select
+ * secondLevelCacheHits, secondLevelCacheMisses, secondLevelCachePuts
+ *                   how often entities and collections were found in, missing from and added to the second-level cache
+ * queryCacheHits, queryCacheMisses, queryCachePuts
+ *                   how often query results were found in, missing from and added to the query cache
+ */
+public class QueryStatsDTO {
+
+    private long statements;
+    private long queries;
+    private long entityLoads;
+    private long collectionFetches;
+    private long secondLevelCacheHits;
+    private long secondLevelCacheMisses;
+    private long secondLevelCachePuts;
+    private long queryCacheHits;
+    private long queryCacheMisses;
+    private long queryCachePuts;
+
+    public QueryStatsDTO() {
+    }
+
+    public QueryStatsDTO(long statements, long queries, long entityLoads, long collectionFetches,
+                         long secondLevelCacheHits, long secondLevelCacheMisses, long secondLevelCachePuts,
+                         long queryCacheHits, long queryCacheMisses, long queryCachePuts) {
+        this.statements = statements;
+        this.queries = queries;
+        this.entityLoads = entityLoads;
+        this.collectionFetches = collectionFetches;
+        this.secondLevelCacheHits = secondLevelCacheHits;
+        this.secondLevelCacheMisses = secondLevelCacheMisses;
+        this.secondLevelCachePuts = secondLevelCachePuts;
+        this.queryCacheHits = queryCacheHits;
+        this.queryCacheMisses = queryCacheMisses;
+        this.queryCachePuts = queryCachePuts;
+    }
+
+    public long getStatements() {
+        return statements;
+    }
+
+    public void setStatements(long statements) {
+        this.statements = statements;
+    }
+
+    public long getQueries() {
+        return queries;
+    }
+
+    public void setQueries(long queries) {
+        this.queries = queries;
+    }
+
+    public long getEntityLoads() {
+        return entityLoads;
+    }
+
+    public void setEntityLoads(long entityLoads) {
+        this.entityLoads = entityLoads;
+    }
+
+    public long getCollectionFetches() {
+        return collectionFetches;
+    }
+
+    public void setCollectionFetches(long collectionFetches) {
+        this.collectionFetches = collectionFetches;
+    }
+
+    public long getSecondLevelCacheHits() {
+        return secondLevelCacheHits;
+    }
+
+    public void setSecondLevelCacheHits(long secondLevelCacheHits) {
+        this.secondLevelCacheHits = secondLevelCacheHits;
+    }
+
+    public long getSecondLevelCacheMisses() {
+        return secondLevelCacheMisses;
+    }
+
+    public void setSecondLevelCacheMisses(long secondLevelCacheMisses) {
+        this.secondLevelCacheMisses = secondLevelCacheMisses;
+    }
+
+    public long getSecondLevelCachePuts() {
+        return secondLevelCachePuts;
+    }
+
+    public void setSecondLevelCachePuts(long secondLevelCachePuts) {
+        this.secondLevelCachePuts = secondLevelCachePuts;
+    }
+
+    public long getQueryCacheHits() {
+        return queryCacheHits;
+    }
+
+    public void setQueryCacheHits(long queryCacheHits) {
+        this.queryCacheHits = queryCacheHits;
+    }
+
+    public long getQueryCacheMisses() {
+        return queryCacheMisses;
+    }
+
+    public void setQueryCacheMisses(long queryCacheMisses) {
+        this.queryCacheMisses = queryCacheMisses;
+    }
+
+    public long getQueryCachePuts() {
+        return queryCachePuts;
+    }
+
+    public void setQueryCachePuts(long queryCachePuts) {
+        this.queryCachePuts = queryCachePuts;
+    }
+}
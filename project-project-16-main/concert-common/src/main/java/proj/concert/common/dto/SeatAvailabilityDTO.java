@@ -0,0 +1,70 @@
+package proj.concert.common.dto;
+
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import proj.concert.common.jackson.LocalDateTimeDeserializer;
+import proj.concert.common.jackson.LocalDateTimeSerializer;
+
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Represents the number of seats still available for a concert on a particular date.
+ *
+ * concertId                      the id of the concert
+ * date                           the date of the particular performance
+ * numSeatsRemaining              the number of unbooked seats in the whole theatre
+ * numSeatsRemainingByPriceBand   the number of unbooked seats in each price band, keyed by price band name
+ */
+public class SeatAvailabilityDTO {
+
+    private long concertId;
+    private LocalDateTime date;
+    private int numSeatsRemaining;
+    private Map<String, Integer> numSeatsRemainingByPriceBand = new LinkedHashMap<>();
+
+    public SeatAvailabilityDTO() {
+    }
+
+    public SeatAvailabilityDTO(long concertId, LocalDateTime date, int numSeatsRemaining, Map<String, Integer> numSeatsRemainingByPriceBand) {
+        this.concertId = concertId;
+        this.date = date;
+        this.numSeatsRemaining = numSeatsRemaining;
+        this.numSeatsRemainingByPriceBand = numSeatsRemainingByPriceBand;
+    }
+
+    public long getConcertId() {
+        return concertId;
+    }
+
+    public void setConcertId(long concertId) {
+        this.concertId = concertId;
+    }
+
+    @JsonSerialize(using = LocalDateTimeSerializer.class)
+    @JsonDeserialize(using = LocalDateTimeDeserializer.class)
+    public LocalDateTime getDate() {
+        return date;
+    }
+
+    public void setDate(LocalDateTime date) {
+        this.date = date;
+    }
+
+    public int getNumSeatsRemaining() {
+        return numSeatsRemaining;
+    }
+
+    public void setNumSeatsRemaining(int numSeatsRemaining) {
+        this.numSeatsRemaining = numSeatsRemaining;
+    }
+
+    public Map<String, Integer> getNumSeatsRemainingByPriceBand() {
+        return numSeatsRemainingByPriceBand;
+    }
+
+    public void setNumSeatsRemainingByPriceBand(Map<String, Integer> numSeatsRemainingByPriceBand) {
+        this.numSeatsRemainingByPriceBand = numSeatsRemainingByPriceBand;
+    }
+}
@@ -0,0 +1,80 @@
+package proj.concert.common.dto;
+
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import proj.concert.common.jackson.LocalDateTimeDeserializer;
+import proj.concert.common.jackson.LocalDateTimeSerializer;
+
+import java.time.LocalDateTime;
+
+/**
+ * Represents which seats are taken for a concert on a particular date, packed into a bitmap.
+ *
+ * concertId        the id of the concert
+ * date             the date of the particular performance
+ * numRows          the number of rows in the theatre
+ * numSeatsPerRow   the number of seats in each row
+ * bitmap           the base64 encoding of one bit per seat, in layout order (A1, A2, ..., B1, ...). Bit j of byte i
+ *                  stands for seat 8i + j, and is set when that seat is taken
+ */
+public class SeatBitmapDTO {
+
+    private long concertId;
+    private LocalDateTime date;
+    private int numRows;
+    private int numSeatsPerRow;
+    private String bitmap;
+
+    public SeatBitmapDTO() {
+    }
+
+    public SeatBitmapDTO(long concertId, LocalDateTime date, int numRows, int numSeatsPerRow, String bitmap) {
+        this.concertId = concertId;
+        this.date = date;
+        this.numRows = numRows;
+        this.numSeatsPerRow = numSeatsPerRow;
+        this.bitmap = bitmap;
+    }
+
+    public long getConcertId() {
+        return concertId;
+    }
+
+    public void setConcertId(long concertId) {
+        this.concertId = concertId;
+    }
+
+    @JsonSerialize(using = LocalDateTimeSerializer.class)
+    @JsonDeserialize(using = LocalDateTimeDeserializer.class)
+    public LocalDateTime getDate() {
+        return date;
+    }
+
+    public void setDate(LocalDateTime date) {
+        this.date = date;
+    }
+
+    public int getNumRows() {
+        return numRows;
+    }
+
+    public void setNumRows(int numRows) {
+        this.numRows = numRows;
+    }
+
+    public int getNumSeatsPerRow() {
+        return numSeatsPerRow;
+    }
+
+    public void setNumSeatsPerRow(int numSeatsPerRow) {
+        this.numSeatsPerRow = numSeatsPerRow;
+    }
+
+    public String getBitmap() {
+        return bitmap;
+    }
+
+    public void setBitmap(String bitmap) {
+        this.bitmap = bitmap;
+    }
+}
@@ -0,0 +1,42 @@
+package proj.concert.common.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Explains why a booking or hold could not be made because some of its seats were already taken, and suggests seats
+ * which could be requested instead.
+ * conflictingSeatLabels   the requested seats which are already taken
+ * suggestedSeatLabels     a full set of seats to request instead: the requested seats which are still free, with each
+ *                         taken seat replaced by a nearby free seat in the same price band. Empty if the price band
+ *                         doesn't have enough free seats
+ */
+public class SeatConflictDTO {
+
+    private List<String> conflictingSeatLabels = new ArrayList<>();
+    private List<String> suggestedSeatLabels = new ArrayList<>();
+
+    public SeatConflictDTO() {
+    }
+
+    public SeatConflictDTO(List<String> conflictingSeatLabels, List<String> suggestedSeatLabels) {
+        this.conflictingSeatLabels = conflictingSeatLabels;
+        this.suggestedSeatLabels = suggestedSeatLabels;
+    }
+
+    public List<String> getConflictingSeatLabels() {
+        return conflictingSeatLabels;
+    }
+
+    public void setConflictingSeatLabels(List<String> conflictingSeatLabels) {
+        this.conflictingSeatLabels = conflictingSeatLabels;
+    }
+
+    public List<String> getSuggestedSeatLabels() {
+        return suggestedSeatLabels;
+    }
+
+    public void setSuggestedSeatLabels(List<String> suggestedSeatLabels) {
+        this.suggestedSeatLabels = suggestedSeatLabels;
+    }
+}
@@ -0,0 +1,80 @@
+package proj.concert.common.dto;
+
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import proj.concert.common.jackson.LocalDateTimeDeserializer;
+import proj.concert.common.jackson.LocalDateTimeSerializer;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Represents a temporary hold on some seats, giving the holder time to complete their booking.
+ * id                 the id of the hold
+ * concertId          the id of the concert whose seats are held
+ * date               the date on which that concert's seats are held
+ * seatLabels         the seats which are held for that concert on that date
+ * expiresInSeconds   how long the hold has left before the seats are released
+ */
+public class SeatHoldDTO {
+
+    private String id;
+    private long concertId;
+    private LocalDateTime date;
+    private List<String> seatLabels = new ArrayList<>();
+    private long expiresInSeconds;
+
+    public SeatHoldDTO() {
+    }
+
+    public SeatHoldDTO(String id, long concertId, LocalDateTime date, List<String> seatLabels, long expiresInSeconds) {
+        this.id = id;
+        this.concertId = concertId;
+        this.date = date;
+        this.seatLabels = seatLabels;
+        this.expiresInSeconds = expiresInSeconds;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public long getConcertId() {
+        return concertId;
+    }
+
+    public void setConcertId(long concertId) {
+        this.concertId = concertId;
+    }
+
+    @JsonSerialize(using = LocalDateTimeSerializer.class)
+    @JsonDeserialize(using = LocalDateTimeDeserializer.class)
+    public LocalDateTime getDate() {
+        return date;
+    }
+
+    public void setDate(LocalDateTime date) {
+        this.date = date;
+    }
+
+    public List<String> getSeatLabels() {
+        return seatLabels;
+    }
+
+    public void setSeatLabels(List<String> seatLabels) {
+        this.seatLabels = seatLabels;
+    }
+
+    public long getExpiresInSeconds() {
+        return expiresInSeconds;
+    }
+
+    public void setExpiresInSeconds(long expiresInSeconds) {
+        this.expiresInSeconds = expiresInSeconds;
+    }
+}
@@ -4,6 +4,10 @@ import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
 import com.fasterxml.jackson.databind.annotation.JsonSerialize;
 import proj.concert.common.jackson.LocalDateTimeDeserializer;
 import proj.concert.common.jackson.LocalDateTimeSerializer;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+import proj.concert.service.hibernate.PooledSequenceGenerator;
 
 import javax.persistence.*;
 import java.time.LocalDateTime;
@@ -11,10 +15,12 @@ import java.util.HashSet;
 import java.util.Set;
 
 @Entity
-@Table(name = "BOOKING")
+@Table(name = "BOOKING", indexes = @Index(name = "BOOKING_USER_IDX", columnList = "userId, bookingId"))
 public class Booking {
     @Id
-    @GeneratedValue
+    @GeneratedValue(generator = "bookingIds")
+    @GenericGenerator(name = "bookingIds", strategy = PooledSequenceGenerator.STRATEGY,
+            parameters = @Parameter(name = SequenceStyleGenerator.SEQUENCE_PARAM, value = "BOOKING_SEQ"))
     private long bookingId;
     private long concertId;
     private long userId;
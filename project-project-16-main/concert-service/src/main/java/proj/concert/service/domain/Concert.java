@@ -5,6 +5,13 @@ import java.util.*;
 
 import javax.persistence.*;
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+import proj.concert.service.hibernate.PooledSequenceGenerator;
+
 import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
 import com.fasterxml.jackson.databind.annotation.JsonSerialize;
 import proj.concert.common.jackson.LocalDateTimeDeserializer;
@@ -12,10 +19,18 @@ import proj.concert.common.jackson.LocalDateTimeSerializer;
 
 @Entity
 @Table(name = "CONCERTS")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "catalog.concerts")
+@NamedEntityGraphs({
+        @NamedEntityGraph(name = "Concert.dates", attributeNodes = @NamedAttributeNode("dates")),
+        @NamedEntityGraph(name = "Concert.performers", attributeNodes = @NamedAttributeNode("performers"))
+})
 public class Concert{
 
     @Id
-    @GeneratedValue
+    @GeneratedValue(generator = "concertIds")
+    @GenericGenerator(name = "concertIds", strategy = PooledSequenceGenerator.STRATEGY,
+            parameters = @Parameter(name = SequenceStyleGenerator.SEQUENCE_PARAM, value = "CONCERT_SEQ"))
     @Column(name = "ID", nullable = false)
     private Long id;
     @Column(name = "TITLE", nullable = false)
@@ -25,12 +40,14 @@ public class Concert{
     @Column(name = "BLURB", length = 2048)
     private String blrb;
     @ElementCollection(fetch = FetchType.EAGER)
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "catalog.concertDates")
     @CollectionTable(name = "CONCERT_DATES", joinColumns = @JoinColumn(name = "CONCERT_ID"))
     @Column(name = "DATE", nullable = false)
     private Set<LocalDateTime> dates = new HashSet<>();
     @ManyToMany(
             cascade = {CascadeType.PERSIST, CascadeType.REMOVE},
             fetch = FetchType.LAZY)
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "catalog.concertPerformers")
     @JoinTable(name = "CONCERT_PERFORMER",
             joinColumns = @JoinColumn(name = "CONCERT_ID"),
             inverseJoinColumns = @JoinColumn(name = "PERFORMER_ID"))
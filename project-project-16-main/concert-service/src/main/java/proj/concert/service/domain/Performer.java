@@ -2,7 +2,13 @@ package proj.concert.service.domain;
 
 import org.apache.commons.lang3.builder.EqualsBuilder;
 import org.apache.commons.lang3.builder.HashCodeBuilder;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
 import proj.concert.common.types.Genre;
+import proj.concert.service.hibernate.PooledSequenceGenerator;
 
 import javax.persistence.*;
 import java.util.ArrayList;
@@ -10,10 +16,14 @@ import java.util.List;
 
 @Entity
 @Table(name = "PERFORMERS")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "catalog.performers")
 public class Performer {
 
     @Id
-    @GeneratedValue
+    @GeneratedValue(generator = "performerIds")
+    @GenericGenerator(name = "performerIds", strategy = PooledSequenceGenerator.STRATEGY,
+            parameters = @Parameter(name = SequenceStyleGenerator.SEQUENCE_PARAM, value = "PERFORMER_SEQ"))
     @Column(name = "ID", nullable = false)
     private Long id;
     @Column(name = "NAME", nullable = false)
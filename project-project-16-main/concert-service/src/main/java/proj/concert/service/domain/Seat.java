@@ -6,18 +6,33 @@ import proj.concert.common.jackson.LocalDateTimeDeserializer;
 import proj.concert.common.jackson.LocalDateTimeSerializer;
 import org.apache.commons.lang3.builder.EqualsBuilder;
 import org.apache.commons.lang3.builder.HashCodeBuilder;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+import proj.concert.service.hibernate.PooledSequenceGenerator;
 import proj.concert.common.types.BookingStatus;
 
 import javax.persistence.*;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
+// Label leads the second index because H2 can only seek an IN list on the first column of an index, and seats are looked
+// up by a list of labels for one date when they are booked. It is unique, so a performance's seats can never be
+// created twice.
 @Entity
+@Table(indexes = {
+		@Index(name = "SEAT_DATE_BOOKED_IDX", columnList = "date, isBooked"),
+		@Index(name = "SEAT_LABEL_DATE_IDX", columnList = "label, date", unique = true)
+})
 public class Seat {
 
 	@Id
-	@GeneratedValue
+	@GeneratedValue(generator = "seatIds")
+	@GenericGenerator(name = "seatIds", strategy = PooledSequenceGenerator.STRATEGY,
+			parameters = @Parameter(name = SequenceStyleGenerator.SEQUENCE_PARAM, value = "SEAT_SEQ"))
 	private long id;
+	@Version
+	private long version;
 	private boolean isBooked = false;
   	@JsonSerialize(using = LocalDateTimeSerializer.class)
 	@JsonDeserialize(using = LocalDateTimeDeserializer.class)
@@ -44,6 +59,10 @@ public class Seat {
 		return id;
 	}
 
+	public long getVersion() {
+		return version;
+	}
+
 	public String getLabel() {
 		return label;
 	}
@@ -2,7 +2,11 @@ package proj.concert.service.domain;
 
 import org.apache.commons.lang3.builder.EqualsBuilder;
 import org.apache.commons.lang3.builder.HashCodeBuilder;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
 import proj.concert.common.dto.UserDTO;
+import proj.concert.service.hibernate.PooledSequenceGenerator;
 
 import javax.persistence.*;
 import java.util.ArrayList;
@@ -13,7 +17,9 @@ import java.util.List;
 public class User {
 
     @Id
-    @GeneratedValue
+    @GeneratedValue(generator = "userIds")
+    @GenericGenerator(name = "userIds", strategy = PooledSequenceGenerator.STRATEGY,
+            parameters = @Parameter(name = SequenceStyleGenerator.SEQUENCE_PARAM, value = "USER_SEQ"))
     @Column(name = "ID", nullable = false)
     private Long id;
     @Column(name = "USERNAME", nullable = false)
@@ -0,0 +1,347 @@
+package proj.concert.service.hibernate;
+
+import org.hibernate.HibernateException;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.engine.jdbc.connections.spi.ConnectionProvider;
+import org.hibernate.service.UnknownUnwrapTypeException;
+import org.hibernate.service.spi.Configurable;
+import org.hibernate.service.spi.Stoppable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import proj.concert.service.util.TimerWheel;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Hibernate connection provider that keeps a bounded pool of JDBC connections. At most maxSize connections are open
+ * at once; a caller that finds them all in use waits for one to be returned, and fails after acquireTimeoutMillis
+ * rather than waiting forever. Returned connections are kept open for the next caller, and minIdle connections are
+ * opened up front.
+ * <p>
+ * A connection held for longer than leakDetectionMillis is reported as a possible leak, along with where it was taken
+ * from the pool. Setting it to 0 turns leak detection off. The pool is sized with persistence unit properties:
+ * <pre>
+ * concert.pool.maxSize, concert.pool.minIdle, concert.pool.acquireTimeoutMillis, concert.pool.leakDetectionMillis
+ * </pre>
+ * How many connections are in use, idle and waited for, and how long callers have waited, are counted so the pool can
+ * be sized against the number of threads serving requests.
+ */
+public class BoundedConnectionProvider implements ConnectionProvider, Configurable, Stoppable {
+
+    private static Logger LOGGER = LoggerFactory.getLogger(BoundedConnectionProvider.class);
+
+    private static final String PREFIX = "concert.pool.";
+    private static final int DEFAULT_MAX_SIZE = 10;
+    private static final int DEFAULT_MIN_IDLE = 2;
+    private static final long DEFAULT_ACQUIRE_TIMEOUT_MILLIS = 5000;
+    private static final long DEFAULT_LEAK_DETECTION_MILLIS = 30000;
+
+    private String url;
+    private Properties connectionProperties;
+    private boolean autoCommit;
+    private int maxSize;
+    private long acquireTimeoutMillis;
+    private long leakDetectionMillis;
+
+    private Semaphore permits;
+    private final BlockingDeque<Connection> idle = new LinkedBlockingDeque<>();
+    private final ConcurrentMap<Connection, Lease> leases = new ConcurrentHashMap<>();
+    private TimerWheel leakDetector;
+    private volatile boolean stopped;
+
+    private final AtomicInteger pending = new AtomicInteger();
+    private final AtomicLong acquired = new AtomicLong();
+    private final AtomicLong timeouts = new AtomicLong();
+    private final AtomicLong leaks = new AtomicLong();
+    private final AtomicLong totalWaitNanos = new AtomicLong();
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+
+    @Override
+    public void configure(Map configurationValues) {
+        url = firstSetting(configurationValues, AvailableSettings.URL, AvailableSettings.JPA_JDBC_URL);
+        if (url == null) {
+            throw new HibernateException("No JDBC URL was given for the connection pool");
+        }
+        String driver = firstSetting(configurationValues, AvailableSettings.DRIVER, AvailableSettings.JPA_JDBC_DRIVER);
+        if (driver != null) {
+            try {
+                Class.forName(driver);
+            } catch (ClassNotFoundException e) {
+                throw new HibernateException("Couldn't load JDBC driver " + driver, e);
+            }
+        }
+
+        connectionProperties = new Properties();
+        String user = firstSetting(configurationValues, AvailableSettings.USER, AvailableSettings.JPA_JDBC_USER);
+        String password = firstSetting(configurationValues, AvailableSettings.PASS, AvailableSettings.JPA_JDBC_PASSWORD);
+        if (user != null) {
+            connectionProperties.setProperty("user", user);
+        }
+        if (password != null) {
+            connectionProperties.setProperty("password", password);
+        }
+        autoCommit = Boolean.parseBoolean(setting(configurationValues, AvailableSettings.AUTOCOMMIT, false));
+
+        maxSize = Integer.parseInt(setting(configurationValues, PREFIX + "maxSize", DEFAULT_MAX_SIZE));
+        int minIdle = Math.min(maxSize,
+                Integer.parseInt(setting(configurationValues, PREFIX + "minIdle", DEFAULT_MIN_IDLE)));
+        acquireTimeoutMillis = Long.parseLong(
+                setting(configurationValues, PREFIX + "acquireTimeoutMillis", DEFAULT_ACQUIRE_TIMEOUT_MILLIS));
+        leakDetectionMillis = Long.parseLong(
+                setting(configurationValues, PREFIX + "leakDetectionMillis", DEFAULT_LEAK_DETECTION_MILLIS));
+
+        permits = new Semaphore(maxSize, true);
+        if (leakDetectionMillis > 0) {
+            leakDetector = new TimerWheel(Math.max(10, Math.min(1000, leakDetectionMillis / 10)), 512,
+                    "connection-leak-detector");
+        }
+
+        try {
+            for (int i = 0; i < minIdle; i++) {
+                idle.push(openConnection());
+            }
+        } catch (SQLException e) {
+            throw new HibernateException("Couldn't open connections to " + url, e);
+        }
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (stopped) {
+            throw new SQLException("The connection pool for " + url + " has been shut down");
+        }
+
+        long start = System.nanoTime();
+        pending.incrementAndGet();
+        try {
+            if (!permits.tryAcquire(acquireTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                timeouts.incrementAndGet();
+                throw new SQLTransientConnectionException("Timed out after " + acquireTimeoutMillis
+                        + " ms waiting for a connection to " + url + " (" + getActive() + " in use, "
+                        + (pending.get() - 1) + " others waiting)");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLTransientConnectionException("Interrupted while waiting for a connection to " + url, e);
+        } finally {
+            pending.decrementAndGet();
+        }
+        long waited = System.nanoTime() - start;
+        acquired.incrementAndGet();
+        totalWaitNanos.addAndGet(waited);
+        maxWaitNanos.accumulateAndGet(waited, Math::max);
+
+        try {
+            Connection connection = takeIdleConnection();
+            Lease lease = new Lease();
+            if (leakDetector != null) {
+                lease.origin = new Throwable("Connection taken from the pool");
+                lease.leakCheck = leakDetector.schedule(() -> reportLeak(lease), leakDetectionMillis);
+            }
+            leases.put(connection, lease);
+            return connection;
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    @Override
+    public void closeConnection(Connection connection) throws SQLException {
+        Lease lease = leases.remove(connection);
+        if (lease == null) {
+            // Not one of ours, or returned twice.
+            connection.close();
+            return;
+        }
+        if (lease.leakCheck != null && !lease.leakCheck.cancel()) {
+            LOGGER.info("closeConnection(): A connection reported as a possible leak was returned after "
+                    + (System.currentTimeMillis() - lease.since) + " ms");
+        }
+
+        try {
+            if (stopped || connection.isClosed()) {
+                connection.close();
+            } else {
+                idle.push(connection);
+            }
+        } finally {
+            permits.release();
+        }
+    }
+
+    @Override
+    public boolean supportsAggressiveRelease() {
+        return false;
+    }
+
+    @Override
+    public void stop() {
+        stopped = true;
+        if (leakDetector != null) {
+            leakDetector.stop();
+        }
+        Connection connection;
+        while ((connection = idle.poll()) != null) {
+            closeQuietly(connection);
+        }
+        if (!leases.isEmpty()) {
+            LOGGER.warn("stop(): " + leases.size() + " connections to " + url
+                    + " were still in use when the pool was shut down, and will be closed when returned");
+        }
+    }
+
+    @Override
+    public boolean isUnwrappableAs(Class unwrapType) {
+        return unwrapType.isInstance(this);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T unwrap(Class<T> unwrapType) {
+        if (unwrapType.isInstance(this)) {
+            return (T) this;
+        }
+        throw new UnknownUnwrapTypeException(unwrapType);
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    /**
+     * Returns how many connections are in use right now.
+     */
+    public int getActive() {
+        return leases.size();
+    }
+
+    /**
+     * Returns how many open connections are waiting in the pool to be used.
+     */
+    public int getIdle() {
+        return idle.size();
+    }
+
+    /**
+     * Returns how many callers are waiting for a connection right now.
+     */
+    public int getPending() {
+        return pending.get();
+    }
+
+    /**
+     * Returns how many connections have been handed out.
+     */
+    public long getAcquired() {
+        return acquired.get();
+    }
+
+    /**
+     * Returns how many callers gave up waiting for a connection.
+     */
+    public long getTimeouts() {
+        return timeouts.get();
+    }
+
+    /**
+     * Returns how many connections have been reported as possible leaks.
+     */
+    public long getLeaks() {
+        return leaks.get();
+    }
+
+    /**
+     * Returns the total time, in milliseconds, that callers have waited for connections.
+     */
+    public long getTotalWaitMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(totalWaitNanos.get());
+    }
+
+    /**
+     * Returns the longest time, in milliseconds, that a caller has waited for a connection.
+     */
+    public long getMaxWaitMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(maxWaitNanos.get());
+    }
+
+    /*
+    Helper function that takes a usable connection from the pool, opening a new one if there are none. Connections that
+    were closed while idle are thrown away.
+     */
+    private Connection takeIdleConnection() throws SQLException {
+        Connection connection;
+        while ((connection = idle.poll()) != null) {
+            if (!connection.isClosed()) {
+                return connection;
+            }
+        }
+        return openConnection();
+    }
+
+    private Connection openConnection() throws SQLException {
+        Connection connection = DriverManager.getConnection(url, connectionProperties);
+        connection.setAutoCommit(autoCommit);
+        return connection;
+    }
+
+    /*
+    Helper function that logs a connection that has been held for too long, with where it was taken from the pool.
+     */
+    private void reportLeak(Lease lease) {
+        leaks.incrementAndGet();
+        LOGGER.warn("reportLeak(): A connection to " + url + " has been held for more than " + leakDetectionMillis
+                + " ms, and may have been leaked. It was taken from the pool here:", lease.origin);
+    }
+
+    private static void closeQuietly(Connection connection) {
+        try {
+            connection.close();
+        } catch (SQLException e) {
+            LOGGER.debug("closeQuietly(): Couldn't close connection", e);
+        }
+    }
+
+    /*
+    Helper function that looks up the first of the given settings that is present.
+     */
+    private static String firstSetting(Map<?, ?> configurationValues, String... names) {
+        for (String name : names) {
+            Object value = configurationValues.get(name);
+            if (value != null) {
+                return String.valueOf(value).trim();
+            }
+        }
+        return null;
+    }
+
+    /*
+    Helper function that looks up a setting, falling back to the given default.
+     */
+    private static String setting(Map<?, ?> configurationValues, String name, Object defaultValue) {
+        Object value = configurationValues.get(name);
+        return String.valueOf(value != null ? value : defaultValue).trim();
+    }
+
+    /*
+    A connection that has been taken from the pool, and where it was taken from.
+     */
+    private static class Lease {
+        private final long since = System.currentTimeMillis();
+        private Throwable origin;
+        private volatile TimerWheel.Timeout leakCheck;
+    }
+}
@@ -0,0 +1,52 @@
+package proj.concert.service.hibernate;
+
+import org.hibernate.cache.spi.support.DomainDataStorageAccess;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import proj.concert.service.util.ExpiringCache;
+
+/**
+ * Stores the contents of one of Hibernate's cache regions in an {@link ExpiringCache}. Hibernate's access strategies
+ * take care of locking entries while they are being written, so the storage only needs to hold them.
+ */
+public class ExpiringCacheStorage implements DomainDataStorageAccess {
+
+    private final ExpiringCache<Object, Object> cache;
+
+    public ExpiringCacheStorage(ExpiringCache<Object, Object> cache) {
+        this.cache = cache;
+    }
+
+    public ExpiringCache<Object, Object> getCache() {
+        return cache;
+    }
+
+    @Override
+    public Object getFromCache(Object key, SharedSessionContractImplementor session) {
+        return cache.peek(key);
+    }
+
+    @Override
+    public void putIntoCache(Object key, Object value, SharedSessionContractImplementor session) {
+        cache.put(key, value);
+    }
+
+    @Override
+    public boolean contains(Object key) {
+        return cache.contains(key);
+    }
+
+    @Override
+    public void evictData() {
+        cache.invalidateAll();
+    }
+
+    @Override
+    public void evictData(Object key) {
+        cache.invalidate(key);
+    }
+
+    @Override
+    public void release() {
+        cache.invalidateAll();
+    }
+}
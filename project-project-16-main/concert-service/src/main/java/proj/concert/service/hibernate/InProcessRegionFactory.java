@@ -0,0 +1,102 @@
+package proj.concert.service.hibernate;
+
+import org.hibernate.boot.spi.SessionFactoryOptions;
+import org.hibernate.cache.cfg.spi.DomainDataRegionBuildingContext;
+import org.hibernate.cache.cfg.spi.DomainDataRegionConfig;
+import org.hibernate.cache.spi.support.DomainDataStorageAccess;
+import org.hibernate.cache.spi.support.RegionFactoryTemplate;
+import org.hibernate.cache.spi.support.StorageAccess;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import proj.concert.service.util.ExpiringCache;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Hibernate second-level cache provider that keeps each region in memory, in an {@link ExpiringCache}. Every region
+ * is bounded in size, evicting its least recently used entries when full, and entries expire after a time to live.
+ * <p>
+ * Region sizes and times to live are set with persistence unit properties, either for all regions or for one region
+ * by name:
+ * <pre>
+ * concert.cache.maxEntries, concert.cache.ttlSeconds
+ * concert.cache.region.&lt;region name&gt;.maxEntries, concert.cache.region.&lt;region name&gt;.ttlSeconds
+ * </pre>
+ * The update timestamps region is never bounded and never expires, as the query cache relies on it to tell whether
+ * a cached result is stale.
+ */
+public class InProcessRegionFactory extends RegionFactoryTemplate {
+
+    private static final String PREFIX = "concert.cache.";
+    private static final int DEFAULT_MAX_ENTRIES = 1000;
+    private static final long DEFAULT_TTL_SECONDS = 600;
+
+    private final List<ExpiringCache<?, ?>> caches = new CopyOnWriteArrayList<>();
+    private Map<?, ?> configValues;
+
+    @Override
+    protected void prepareForUse(SessionFactoryOptions settings, Map configValues) {
+        this.configValues = configValues;
+    }
+
+    @Override
+    protected void releaseFromUse() {
+        for (ExpiringCache<?, ?> cache : caches) {
+            cache.invalidateAll();
+        }
+        caches.clear();
+    }
+
+    @Override
+    protected DomainDataStorageAccess createDomainDataStorageAccess(DomainDataRegionConfig regionConfig,
+                                                                    DomainDataRegionBuildingContext buildingContext) {
+        return createStorage(regionConfig.getRegionName());
+    }
+
+    @Override
+    protected StorageAccess createQueryResultsRegionStorageAccess(String regionName,
+                                                                  SessionFactoryImplementor sessionFactory) {
+        return createStorage(regionName);
+    }
+
+    @Override
+    protected StorageAccess createTimestampsRegionStorageAccess(String regionName,
+                                                                SessionFactoryImplementor sessionFactory) {
+        ExpiringCache<Object, Object> cache = new ExpiringCache<>(regionName, Integer.MAX_VALUE, 0);
+        caches.add(cache);
+        return new ExpiringCacheStorage(cache);
+    }
+
+    /**
+     * Returns the cache behind every region built so far.
+     */
+    public List<ExpiringCache<?, ?>> getCaches() {
+        return new ArrayList<>(caches);
+    }
+
+    /*
+    Helper function that creates the storage for a region, sized according to the configuration.
+     */
+    private ExpiringCacheStorage createStorage(String regionName) {
+        int maxEntries = Integer.parseInt(setting(regionName, "maxEntries", DEFAULT_MAX_ENTRIES));
+        long ttlSeconds = Long.parseLong(setting(regionName, "ttlSeconds", DEFAULT_TTL_SECONDS));
+
+        ExpiringCache<Object, Object> cache = new ExpiringCache<>(regionName, maxEntries, ttlSeconds * 1000);
+        caches.add(cache);
+        return new ExpiringCacheStorage(cache);
+    }
+
+    /*
+    Helper function that looks up a setting for the given region, falling back to the setting for all regions and then
+    to the given default.
+     */
+    private String setting(String regionName, String name, Object defaultValue) {
+        Object value = configValues.get(PREFIX + "region." + regionName + "." + name);
+        if (value == null) {
+            value = configValues.get(PREFIX + name);
+        }
+        return String.valueOf(value != null ? value : defaultValue).trim();
+    }
+}
@@ -0,0 +1,134 @@
+package proj.concert.service.jaxrs;
+
+import proj.concert.service.services.IdempotencyCache;
+
+import javax.ws.rs.HttpMethod;
+import javax.ws.rs.container.ContainerRequestContext;
+import javax.ws.rs.container.ContainerRequestFilter;
+import javax.ws.rs.container.ContainerResponseContext;
+import javax.ws.rs.container.ContainerResponseFilter;
+import javax.ws.rs.container.PreMatching;
+import javax.ws.rs.core.Cookie;
+import javax.ws.rs.core.GenericEntity;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.Response.ResponseBuilder;
+import javax.ws.rs.ext.Provider;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * This filter lets clients safely retry a POST, PUT or DELETE request to the booking and hold endpoints by sending an
+ * Idempotency-Key header with a value of their choosing. The first request with a given key is carried out as normal,
+ * and its response (including its headers and cookies) is kept in the {@link IdempotencyCache}. Any later request with
+ * the same key gets that same response back, without reaching the web service or the database at all.
+ * <p>
+ * Keys are scoped to the logged-in user, so two users can't see each other's responses. Keys sent by clients that
+ * aren't logged in are ignored, and their requests are carried out as normal. Reusing a key for a different request
+ * gets a 422 response, and retrying while the original request is still being carried out gets a 409. Server errors
+ * aren't remembered, so those requests can be retried for real.
+ */
+@Provider
+@PreMatching
+public class IdempotencyFilter implements ContainerRequestFilter, ContainerResponseFilter {
+
+    public static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+
+    private static final String CACHE_KEY_PROPERTY = IdempotencyFilter.class.getName() + ".key";
+    private static final int UNPROCESSABLE_ENTITY = 422;
+
+    // The endpoints that honour keys: making and cancelling bookings, and placing, extending and releasing holds.
+    private static final Pattern IDEMPOTENT_PATHS = Pattern.compile("/?concert-service/(bookings|holds)(/.*)?");
+
+    @Override
+    public void filter(ContainerRequestContext request) throws IOException {
+        String idempotencyKey = request.getHeaderString(IDEMPOTENCY_KEY_HEADER);
+        if (idempotencyKey == null || !isMutating(request.getMethod())
+                || !IDEMPOTENT_PATHS.matcher(request.getUriInfo().getPath()).matches()) {
+            return;
+        }
+
+        Cookie auth = request.getCookies().get("auth");
+        if (auth == null) {
+            return;
+        }
+        String cacheKey = auth.getValue() + ":" + idempotencyKey;
+
+        // The body has to be read to fingerprint it, so put it back afterwards for the web service to read.
+        byte[] body = request.hasEntity() ? request.getEntityStream().readAllBytes() : new byte[0];
+        request.setEntityStream(new ByteArrayInputStream(body));
+        String fingerprint = fingerprint(request.getMethod(), request.getUriInfo().getRequestUri(), body);
+
+        IdempotencyCache.Entry existing = IdempotencyCache.instance().begin(cacheKey, fingerprint);
+        if (existing == null) {
+            request.setProperty(CACHE_KEY_PROPERTY, cacheKey);
+        } else if (!existing.getFingerprint().equals(fingerprint)) {
+            request.abortWith(Response.status(UNPROCESSABLE_ENTITY).build());
+        } else if (existing.isInFlight()) {
+            request.abortWith(Response.status(Response.Status.CONFLICT).build());
+        } else {
+            request.abortWith(replay(existing));
+        }
+    }
+
+    @Override
+    public void filter(ContainerRequestContext request, ContainerResponseContext response) {
+        String cacheKey = (String) request.getProperty(CACHE_KEY_PROPERTY);
+        if (cacheKey == null) {
+            return;
+        }
+
+        if (response.getStatus() >= 500) {
+            IdempotencyCache.instance().abandon(cacheKey);
+        } else {
+            IdempotencyCache.instance().complete(cacheKey, response.getStatus(), response.getEntity(),
+                    response.getEntityType(), response.getMediaType(), response.getStringHeaders());
+        }
+    }
+
+    private static boolean isMutating(String method) {
+        return HttpMethod.POST.equals(method) || HttpMethod.PUT.equals(method) || HttpMethod.DELETE.equals(method);
+    }
+
+    private static Response replay(IdempotencyCache.Entry entry) {
+        ResponseBuilder builder = Response.status(entry.getStatus()).header(REPLAYED_HEADER, "true");
+        if (entry.getEntity() != null) {
+            // Aborted requests never reach a resource method, so the content type must be given explicitly.
+            builder.entity(new GenericEntity<>(entry.getEntity(), entry.getEntityType()))
+                    .type(entry.getMediaType() != null ? entry.getMediaType() : MediaType.APPLICATION_JSON_TYPE);
+        }
+        for (Map.Entry<String, List<String>> header : entry.getHeaders().entrySet()) {
+            // The content type is set along with the entity, and the length is worked out again when it is written.
+            if (header.getKey().equalsIgnoreCase(HttpHeaders.CONTENT_TYPE)
+                    || header.getKey().equalsIgnoreCase(HttpHeaders.CONTENT_LENGTH)) {
+                continue;
+            }
+            for (String value : header.getValue()) {
+                builder.header(header.getKey(), value);
+            }
+        }
+        return builder.build();
+    }
+
+    private static String fingerprint(String method, URI uri, byte[] body) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update((method + " " + uri + "\n").getBytes(StandardCharsets.UTF_8));
+            digest.update(body);
+            return Base64.getEncoder().encodeToString(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            // Every Java platform is required to support SHA-256.
+            throw new IllegalStateException(e);
+        }
+    }
+}
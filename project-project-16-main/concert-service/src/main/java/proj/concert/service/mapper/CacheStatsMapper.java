@@ -0,0 +1,20 @@
+package proj.concert.service.mapper;
+
+import proj.concert.common.dto.CacheStatsDTO;
+import proj.concert.service.util.ExpiringCache;
+
+public class CacheStatsMapper {
+
+    public static CacheStatsDTO toDto(ExpiringCache<?, ?> cache) {
+        return new CacheStatsDTO(
+                cache.getName(),
+                cache.size(),
+                cache.getMaxEntries(),
+                cache.getTtlMillis() / 1000,
+                cache.getHits(),
+                cache.getMisses(),
+                cache.getEvictions()
+        );
+    }
+
+}
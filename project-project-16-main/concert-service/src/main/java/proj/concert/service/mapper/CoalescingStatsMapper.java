@@ -0,0 +1,17 @@
+package proj.concert.service.mapper;
+
+import proj.concert.common.dto.CoalescingStatsDTO;
+import proj.concert.service.util.SingleFlight;
+
+public class CoalescingStatsMapper {
+
+    public static CoalescingStatsDTO toDto(SingleFlight<?, ?> flight) {
+        return new CoalescingStatsDTO(
+                flight.getName(),
+                flight.getLoads(),
+                flight.getCoalesced(),
+                flight.getInFlight()
+        );
+    }
+
+}
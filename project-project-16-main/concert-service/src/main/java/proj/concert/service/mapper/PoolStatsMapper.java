@@ -0,0 +1,22 @@
+package proj.concert.service.mapper;
+
+import proj.concert.common.dto.PoolStatsDTO;
+import proj.concert.service.hibernate.BoundedConnectionProvider;
+
+public class PoolStatsMapper {
+
+    public static PoolStatsDTO toDto(BoundedConnectionProvider pool) {
+        return new PoolStatsDTO(
+                pool.getMaxSize(),
+                pool.getActive(),
+                pool.getIdle(),
+                pool.getPending(),
+                pool.getAcquired(),
+                pool.getTimeouts(),
+                pool.getLeaks(),
+                pool.getTotalWaitMillis(),
+                pool.getMaxWaitMillis()
+        );
+    }
+
+}
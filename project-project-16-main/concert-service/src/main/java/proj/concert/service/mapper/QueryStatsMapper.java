@@ -0,0 +1,23 @@
+package proj.concert.service.mapper;
+
+import org.hibernate.stat.Statistics;
+import proj.concert.common.dto.QueryStatsDTO;
+
+public class QueryStatsMapper {
+
+    public static QueryStatsDTO toDto(Statistics statistics) {
+        return new QueryStatsDTO(
+                statistics.getPrepareStatementCount(),
+                statistics.getQueryExecutionCount(),
+                statistics.getEntityLoadCount(),
+                statistics.getCollectionFetchCount(),
+                statistics.getSecondLevelCacheHitCount(),
+                statistics.getSecondLevelCacheMissCount(),
+                statistics.getSecondLevelCachePutCount(),
+                statistics.getQueryCacheHitCount(),
+                statistics.getQueryCacheMissCount(),
+                statistics.getQueryCachePutCount()
+        );
+    }
+
+}
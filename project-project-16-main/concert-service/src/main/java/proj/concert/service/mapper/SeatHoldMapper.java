@@ -0,0 +1,22 @@
+package proj.concert.service.mapper;
+
+import proj.concert.common.dto.SeatHoldDTO;
+import proj.concert.service.util.SeatHold;
+
+import java.util.ArrayList;
+
+public class SeatHoldMapper {
+
+    public static SeatHoldDTO toDto(SeatHold seatHold) {
+        long remainingMillis = Math.max(0, seatHold.getExpiresAt() - System.currentTimeMillis());
+        SeatHoldDTO dtoSeatHold = new SeatHoldDTO(
+                seatHold.getId(),
+                seatHold.getPerformance().getConcertId(),
+                seatHold.getPerformance().getDate(),
+                new ArrayList<>(seatHold.getSeatLabels()),
+                (remainingMillis + 999) / 1000
+        );
+        return dtoSeatHold;
+    }
+
+}
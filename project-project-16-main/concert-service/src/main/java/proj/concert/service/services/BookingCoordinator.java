@@ -0,0 +1,43 @@
+package proj.concert.service.services;
+
+import proj.concert.service.util.PerformanceKey;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Singleton class that coordinates concurrent bookings. Each performance (concert and date) gets its own lock
+ * stripe, so bookings for the same performance are serialized while bookings for different performances never
+ * contend with each other.
+ * <p>
+ * A booking should hold its performance's lock from the moment it claims seats until its transaction has either
+ * committed or rolled back. The one exception is the backoff before retrying a write that hit a version conflict: the
+ * lock is released while waiting, and the booking's seats stay claimed in memory so no one else can take them.
+ */
+public class BookingCoordinator {
+
+    private static BookingCoordinator instance = null;
+
+    private final ConcurrentMap<PerformanceKey, Lock> locks = new ConcurrentHashMap<>();
+
+    protected BookingCoordinator() {
+    }
+
+    public static synchronized BookingCoordinator instance() {
+        if (instance == null) {
+            instance = new BookingCoordinator();
+        }
+        return instance;
+    }
+
+    /**
+     * Returns the lock guarding bookings for the given performance. The same lock is always returned for the same
+     * performance.
+     */
+    public Lock getLock(long concertId, LocalDateTime date) {
+        return locks.computeIfAbsent(new PerformanceKey(concertId, date), key -> new ReentrantLock());
+    }
+}
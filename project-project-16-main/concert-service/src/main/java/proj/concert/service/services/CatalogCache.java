@@ -0,0 +1,144 @@
+package proj.concert.service.services;
+
+import proj.concert.common.dto.ConcertDTO;
+import proj.concert.common.dto.ConcertSummaryDTO;
+import proj.concert.common.dto.PerformerDTO;
+import proj.concert.service.util.ExpiringCache;
+import proj.concert.service.util.RenderedJson;
+
+import javax.ws.rs.core.EntityTag;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Singleton class that caches the concert catalog - concerts, concert summaries and performers - as DTOs, so that
+ * reading the catalog doesn't need to go to the database each time. The catalog hardly ever changes, so entries live
+ * for a while, but every write to a concert invalidates exactly the entries it affects.
+ * <p>
+ * The lists of concerts and concert summaries are polled constantly by the web client, so they are kept already
+ * serialized to JSON. Every change to the concerts moves the catalog on to a new version, which is used as the strong
+ * entity tag of both lists. A client that already has the current version can then be told so without rendering
+ * anything.
+ * <p>
+ * Sizes and times to live can be set with the concert.catalog.cache.maxEntries and concert.catalog.cache.ttlSeconds
+ * system properties.
+ */
+public class CatalogCache {
+
+    private static CatalogCache instance = null;
+
+    private static final int MAX_ENTRIES = Integer.getInteger("concert.catalog.cache.maxEntries", 1000);
+    private static final long TTL_MILLIS = Long.getLong("concert.catalog.cache.ttlSeconds", 300) * 1000;
+
+    private static final String ALL_CONCERTS = "concerts";
+    private static final String ALL_CONCERT_SUMMARIES = "concertSummaries";
+    private static final String ALL_PERFORMERS = "performers";
+
+    private final ExpiringCache<Long, ConcertDTO> concerts = new ExpiringCache<>("concerts", MAX_ENTRIES, TTL_MILLIS);
+    private final ExpiringCache<Long, PerformerDTO> performers = new ExpiringCache<>("performers", MAX_ENTRIES, TTL_MILLIS);
+    private final ExpiringCache<String, List<?>> lists = new ExpiringCache<>("catalogLists", 16, TTL_MILLIS);
+    private final ExpiringCache<String, RenderedJson> rendered = new ExpiringCache<>("renderedCatalog", 16, TTL_MILLIS);
+
+    // Identifies this run of the service, so that versions from before a restart are never mistaken for current ones.
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+    private final AtomicLong version = new AtomicLong();
+
+    protected CatalogCache() {
+    }
+
+    public static synchronized CatalogCache instance() {
+        if (instance == null) {
+            instance = new CatalogCache();
+        }
+        return instance;
+    }
+
+    public ConcertDTO getConcert(long id, Function<Long, ConcertDTO> loader) {
+        return concerts.get(id, loader);
+    }
+
+    public RenderedJson getAllConcerts(Supplier<List<ConcertDTO>> loader) {
+        return rendered.get(ALL_CONCERTS, key -> render(loader));
+    }
+
+    public RenderedJson getAllConcertSummaries(Supplier<List<ConcertSummaryDTO>> loader) {
+        return rendered.get(ALL_CONCERT_SUMMARIES, key -> render(loader));
+    }
+
+    /**
+     * Returns the entity tag of the current version of the concert lists.
+     */
+    public EntityTag getConcertsTag() {
+        return new EntityTag(epoch + "-" + version.get());
+    }
+
+    public PerformerDTO getPerformer(long id, Function<Long, PerformerDTO> loader) {
+        return performers.get(id, loader);
+    }
+
+    @SuppressWarnings("unchecked")
+    public List<PerformerDTO> getAllPerformers(Supplier<List<PerformerDTO>> loader) {
+        return (List<PerformerDTO>) lists.get(ALL_PERFORMERS, key -> loader.get());
+    }
+
+    /**
+     * Invalidates everything that shows the given concert. Called after it is created or updated.
+     */
+    public void concertChanged(long id) {
+        version.incrementAndGet();
+        concerts.invalidate(id);
+        rendered.invalidateAll();
+    }
+
+    /**
+     * Invalidates everything that shows the given concert or its performers, which are deleted along with it. Called
+     * after it is deleted.
+     */
+    public void concertDeleted(long id, Collection<Long> performerIds) {
+        concertChanged(id);
+        for (long performerId : performerIds) {
+            performers.invalidate(performerId);
+        }
+        lists.invalidate(ALL_PERFORMERS);
+    }
+
+    /**
+     * Invalidates everything that shows any concert or performer. Called after all concerts are deleted.
+     */
+    public void allConcertsChanged() {
+        version.incrementAndGet();
+        concerts.invalidateAll();
+        performers.invalidateAll();
+        lists.invalidateAll();
+        rendered.invalidateAll();
+    }
+
+    /**
+     * Discards the whole catalog. Called whenever the database is re-created.
+     */
+    public void clear() {
+        version.incrementAndGet();
+        concerts.invalidateAll();
+        performers.invalidateAll();
+        lists.invalidateAll();
+        rendered.invalidateAll();
+    }
+
+    public List<ExpiringCache<?, ?>> getCaches() {
+        return Arrays.asList(concerts, performers, lists, rendered);
+    }
+
+    /*
+    Helper function that renders a list under the version that is current before it is loaded. The version is always
+    moved on before the rendered lists are invalidated, so a list loaded from older data than its tag suggests can never
+    be cached.
+     */
+    private RenderedJson render(Supplier<? extends List<?>> loader) {
+        EntityTag tag = getConcertsTag();
+        return RenderedJson.render(loader.get(), tag);
+    }
+}
@@ -3,6 +3,7 @@ package proj.concert.service.services;
 import javax.ws.rs.ApplicationPath;
 import javax.ws.rs.core.Application;
 
+import proj.concert.service.jaxrs.IdempotencyFilter;
 import proj.concert.service.util.ConcertUtils;
 
 import java.util.HashSet;
@@ -21,6 +22,7 @@ public class ConcertApplication extends Application {
     public ConcertApplication() {
         classes.add(TestResource.class);
         classes.add(ConcertResource.class);
+        classes.add(IdempotencyFilter.class);
         singleton.add(PersistenceManager.instance());
         ConcertUtils.initConcerts();
     }
@@ -3,8 +3,18 @@ package proj.concert.service.services;
 import proj.concert.common.dto.*;
 import proj.concert.common.types.BookingStatus;
 import proj.concert.service.domain.*;
+import proj.concert.service.hibernate.BoundedConnectionProvider;
 import proj.concert.service.jaxrs.LocalDateTimeParam;
 import proj.concert.service.mapper.*;
+import proj.concert.service.util.ExpiringCache;
+import proj.concert.service.util.PerformanceKey;
+import proj.concert.service.util.RenderedJson;
+import proj.concert.service.util.RetryPolicy;
+import proj.concert.service.util.SeatAllocator;
+import proj.concert.service.util.SeatAvailability;
+import proj.concert.service.util.SeatCounters;
+import proj.concert.service.util.SeatHold;
+import proj.concert.service.util.TheatreLayout;
 
 import javax.persistence.*;
 import javax.ws.rs.*;
@@ -17,8 +27,13 @@ import java.time.LocalDateTime;
 import java.util.*;
 import java.net.URI;
 import java.util.concurrent.*;
+import java.util.concurrent.locks.Lock;
+import java.util.function.Function;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
+import org.hibernate.jpa.QueryHints;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -34,23 +49,34 @@ public class ConcertResource {
     private static Logger LOGGER = LoggerFactory.getLogger(ConcertResource.class);
     private final static Map<ConcertInfoSubscriptionDTO, AsyncResponse> subs = new HashMap<>(); // subs used when specific concerts is getting near concert cap.
     ExecutorService threadPool = Executors.newCachedThreadPool();
+    private static final RetryPolicy BOOKING_RETRY_POLICY = RetryPolicy.fromSystemProperties(
+            "concert.booking.retry", 3, 10, 200, OptimisticLockException.class);
+    private static final int MAX_BATCH_SIZE = Integer.getInteger("concert.booking.maxBatchSize", 1000);
+    private static final String CATALOG_FETCH = System.getProperty("concert.catalog.fetch", "join");
+    private static final int DEFAULT_PAGE_SIZE = Integer.getInteger("concert.page.defaultLimit", 50);
+    private static final int MAX_PAGE_SIZE = Integer.getInteger("concert.page.maxLimit", 500);
+    private static final String SEAT_TAG_EPOCH = Long.toString(System.currentTimeMillis(), 36); // tags from an earlier run never match
+    private static final String CATALOG_QUERY_REGION = "catalog.queries"; // query cache region, sized in persistence.xml
 
     /**
-     * Retrieves a single concert using a given ID from the web service.
+     * Retrieves a single concert using a given ID from the web service. Served from the {@link CatalogCache} when
+     * possible.
      */
     @GET
     @Path("/concerts/{id}")
     public Response getConcert(@PathParam("id") long id) {
 
         try {
-            tx.begin();
-            Concert concert = em.find(Concert.class, id);
-            tx.commit();
+            ConcertDTO concertDTO = CatalogCache.instance().getConcert(id, key -> {
+                tx.begin();
+                Concert concert = em.find(Concert.class, key);
+                tx.commit();
+                return concert == null ? null : ConcertMapper.toDto(concert);
+            });
 
-            if (concert == null) {
+            if (concertDTO == null) {
                 builder = Response.status(404);
             } else {
-                ConcertDTO concertDTO = ConcertMapper.toDto(concert);
                 builder = Response.ok(concertDTO);
             }
 
@@ -61,50 +87,79 @@ public class ConcertResource {
     }
 
     /*
-    Retrieves all concerts from the web service
+    Retrieves all concerts from the web service. The response is cached already serialized, and a client that sends
+    the current entity tag in If-None-Match is answered with 304 without loading or rendering anything.
+
+    If after or limit is given, only one page of concerts is returned, in order of ID. The page starts after the
+    concert with the given ID, and a Link header points at the next page if there is one.
      */
     @GET
     @Path("/concerts")
-    public Response getAllConcerts() {
-        List<ConcertDTO> concertDTOs = new ArrayList<>();
+    public Response getAllConcerts(@Context Request request, @Context UriInfo uriInfo,
+                                   @QueryParam("after") Long after, @QueryParam("limit") Integer limit) {
         try {
-            tx.begin();
-            TypedQuery<Concert> concertQuery = em.createQuery("select c from Concert c",Concert.class);
-            List<Concert> concerts = concertQuery.getResultList();
-            concertDTOs = concerts.stream()
-                    .map(concert -> ConcertMapper.toDto(concert))
-                    .collect(Collectors.toList());
-            tx.commit();
+            if (after != null || limit != null) {
+                int pageSize = pageSize(limit);
+                if (pageSize < 0) {
+                    return Response.status(Response.Status.BAD_REQUEST).build();
+                }
+
+                tx.begin();
+                List<Long> ids = em
+                        .createQuery("select c.id from Concert c where c.id > :after order by c.id", Long.class)
+                        .setParameter("after", after == null ? Long.MIN_VALUE : after)
+                        .setHint(QueryHints.HINT_CACHEABLE, true)
+                        .setHint(QueryHints.HINT_CACHE_REGION, CATALOG_QUERY_REGION)
+                        .setMaxResults(pageSize + 1)
+                        .getResultList();
+                boolean hasMore = ids.size() > pageSize;
+                List<ConcertDTO> dtos = findCatalogConcerts(ids.subList(0, Math.min(ids.size(), pageSize))).stream()
+                        .map(concert -> ConcertMapper.toDto(concert))
+                        .collect(Collectors.toList());
+                tx.commit();
+
+                return pageResponse(dtos, hasMore, hasMore ? ids.get(pageSize - 1) : 0, pageSize, uriInfo).build();
+            }
+
+            builder = catalogListResponse(request, () -> CatalogCache.instance().getAllConcerts(() -> {
+                tx.begin();
+                List<Concert> concerts = findCatalogConcerts(null);
+                List<ConcertDTO> dtos = concerts.stream()
+                        .map(concert -> ConcertMapper.toDto(concert))
+                        .collect(Collectors.toList());
+                tx.commit();
+                return dtos;
+            }));
         } finally {
             em.close();
         }
-        return Response.ok(concertDTOs).build();
+        return builder.build();
     }
 
     /*
-    Retrieves a summary of all concerts from the web service
+    Retrieves a summary of all concerts from the web service. Only the three columns a summary needs are selected,
+    straight into the DTOs, so none of the concerts' blurbs or dates are loaded. Cached and tagged in the same way as the
+    concerts.
      */
     @GET
     @Path("/concerts/summaries")
-    public Response getAllConcertSummaries() {
-
-        List<ConcertSummaryDTO> summaryDTOs = new ArrayList<>();
+    public Response getAllConcertSummaries(@Context Request request) {
         try {
-            tx.begin();
-            TypedQuery<Concert> concertQuery = em.createQuery("select c from Concert c",Concert.class);
-            List<Concert> concerts = concertQuery.getResultList();
-            for (Concert c: concerts) {
-                ConcertSummary summary = new ConcertSummary(
-                        c.getId(),
-                        c.getTitle(),
-                        c.getImageName()
-                );
-                summaryDTOs.add(ConcertSummaryMapper.toDto(summary));
-            }
+            builder = catalogListResponse(request, () -> CatalogCache.instance().getAllConcertSummaries(() -> {
+                tx.begin();
+                TypedQuery<ConcertSummaryDTO> summaryQuery = em.createQuery(
+                        "select new proj.concert.common.dto.ConcertSummaryDTO(c.id, c.title, c.imageName) from Concert c order by c.id",
+                        ConcertSummaryDTO.class)
+                        .setHint(QueryHints.HINT_CACHEABLE, true)
+                        .setHint(QueryHints.HINT_CACHE_REGION, CATALOG_QUERY_REGION);
+                List<ConcertSummaryDTO> dtos = summaryQuery.getResultList();
+                tx.commit();
+                return dtos;
+            }));
         } finally {
             em.close();
         }
-        return Response.ok(summaryDTOs).build();
+        return builder.build();
     }
 
     @GET
@@ -112,14 +167,16 @@ public class ConcertResource {
     public Response getPerformer(@PathParam("id") long id) {
 
         try {
-            tx.begin();
-            Performer performer = em.find(Performer.class, id);
-            tx.commit();
+            PerformerDTO performerDTO = CatalogCache.instance().getPerformer(id, key -> {
+                tx.begin();
+                Performer performer = em.find(Performer.class, key);
+                tx.commit();
+                return performer == null ? null : PerformerMapper.toDto(performer);
+            });
 
-            if (performer == null) {
+            if (performerDTO == null) {
                 builder = Response.status(404);
             } else {
-                PerformerDTO performerDTO = PerformerMapper.toDto(performer);
                 builder = Response.ok(performerDTO);
             }
 
@@ -129,18 +186,52 @@ public class ConcertResource {
         return builder.build();
     }
 
+    /*
+    Retrieves all performers from the web service, or only one page of them if after or limit is given. Pages work in
+    the same way as for the concerts.
+     */
     @GET
     @Path("/performers")
-    public Response getAllPerformers() {
-        List<PerformerDTO> performerDTOS = new ArrayList<>();
+    public Response getAllPerformers(@Context UriInfo uriInfo,
+                                     @QueryParam("after") Long after, @QueryParam("limit") Integer limit) {
+        List<PerformerDTO> performerDTOS;
         try {
-            tx.begin();
-            TypedQuery<Performer> performerQuery = em.createQuery("select p from Performer p",Performer.class);
-            List<Performer> performers = performerQuery.getResultList();
-            performerDTOS = performers.stream()
-                    .map(performer -> PerformerMapper.toDto(performer))
-                    .collect(Collectors.toList());
-            tx.commit();
+            if (after != null || limit != null) {
+                int pageSize = pageSize(limit);
+                if (pageSize < 0) {
+                    return Response.status(Response.Status.BAD_REQUEST).build();
+                }
+
+                tx.begin();
+                List<Performer> performers = em
+                        .createQuery("select p from Performer p where p.id > :after order by p.id", Performer.class)
+                        .setParameter("after", after == null ? Long.MIN_VALUE : after)
+                        .setHint(QueryHints.HINT_CACHEABLE, true)
+                        .setHint(QueryHints.HINT_CACHE_REGION, CATALOG_QUERY_REGION)
+                        .setMaxResults(pageSize + 1)
+                        .getResultList();
+                boolean hasMore = performers.size() > pageSize;
+                List<PerformerDTO> dtos = performers.stream()
+                        .limit(pageSize)
+                        .map(performer -> PerformerMapper.toDto(performer))
+                        .collect(Collectors.toList());
+                tx.commit();
+
+                return pageResponse(dtos, hasMore, hasMore ? performers.get(pageSize - 1).getId() : 0, pageSize, uriInfo).build();
+            }
+
+            performerDTOS = CatalogCache.instance().getAllPerformers(() -> {
+                tx.begin();
+                TypedQuery<Performer> performerQuery = em.createQuery("select p from Performer p",Performer.class)
+                        .setHint(QueryHints.HINT_CACHEABLE, true)
+                        .setHint(QueryHints.HINT_CACHE_REGION, CATALOG_QUERY_REGION);
+                List<Performer> performers = performerQuery.getResultList();
+                List<PerformerDTO> dtos = performers.stream()
+                        .map(performer -> PerformerMapper.toDto(performer))
+                        .collect(Collectors.toList());
+                tx.commit();
+                return dtos;
+            });
         } finally {
             em.close();
         }
@@ -156,6 +247,7 @@ public class ConcertResource {
             tx.begin();
             em.persist(concert);
             tx.commit();
+            CatalogCache.instance().concertChanged(concert.getId());
         } finally {
             em.close();
         }
@@ -168,24 +260,27 @@ public class ConcertResource {
     public Response updateConcert(@PathParam("id") long id, ConcertDTO concertDTO) {
 
         EntityTransaction tx = em.getTransaction();
-        Concert updatedConcert = null;
+        ConcertDTO updatedConcertDTO = null;
         try {
             tx.begin();
             Concert concert = em.find(Concert.class, id);
             if (concert == null) {
                 return Response.status(Response.Status.NOT_FOUND).build();
             }
-            updatedConcert = ConcertMapper.updateFromDto(concertDTO, concert);
+            Concert updatedConcert = ConcertMapper.updateFromDto(concertDTO, concert);
             em.merge(updatedConcert);
             tx.commit();
+            CatalogCache.instance().concertChanged(id);
+
+            // Map while the EM is still open, as the concert's performers are loaded lazily.
+            updatedConcertDTO = ConcertMapper.toDto(updatedConcert);
         } finally {
             em.close();
         }
 
-        if (updatedConcert == null) {
+        if (updatedConcertDTO == null) {
             return Response.status(Response.Status.INTERNAL_SERVER_ERROR).build();
         }
-        ConcertDTO updatedConcertDTO = ConcertMapper.toDto(updatedConcert);
         return Response.ok(updatedConcertDTO).build();
     }
 
@@ -197,13 +292,19 @@ public class ConcertResource {
         try {
             tx.begin();
             Concert concert = em.find(Concert.class, id);
+            List<Long> performerIds = null;
             if (concert == null) {
                 builder = Response.status(Response.Status.NOT_FOUND);
             } else {
+                // The concert's performers are deleted with it, so note which ones before they go.
+                performerIds = concert.getPerformers().stream().map(Performer::getId).collect(Collectors.toList());
                 em.remove(concert);
                 builder = Response.noContent();
             }
             tx.commit();
+            if (concert != null) {
+                CatalogCache.instance().concertDeleted(id, performerIds);
+            }
 
         } finally {
             em.close();
@@ -220,6 +321,7 @@ public class ConcertResource {
             Query query = em.createQuery("DELETE FROM Concert");
             int numDeleted = query.executeUpdate();
             tx.commit();
+            CatalogCache.instance().allConcertsChanged();
         } finally {
             em.close();
         }
@@ -229,6 +331,162 @@ public class ConcertResource {
                 .build();
     }
 
+    /**
+     * Retrieves hit, miss and eviction statistics for the web service's in-process caches, including the regions of
+     * the second-level cache.
+     */
+    @GET
+    @Path("/stats/caches")
+    public Response getCacheStats() {
+        em.close();
+        List<CacheStatsDTO> stats = Stream.concat(
+                        CatalogCache.instance().getCaches().stream(),
+                        PersistenceManager.instance().getCacheRegions().stream())
+                .map(CacheStatsMapper::toDto)
+                .collect(Collectors.toList());
+        return Response.ok(stats).build();
+    }
+
+    /**
+     * Retrieves statement and query counts for the database, which show how many round trips each request costs.
+     */
+    @GET
+    @Path("/stats/queries")
+    public Response getQueryStats() {
+        em.close();
+        return Response.ok(QueryStatsMapper.toDto(PersistenceManager.instance().getStatistics())).build();
+    }
+
+    /**
+     * Retrieves how often concurrent identical reads shared a single load, for each kind of load that is coalesced.
+     */
+    @GET
+    @Path("/stats/coalescing")
+    public Response getCoalescingStats() {
+        em.close();
+        List<CoalescingStatsDTO> stats = Stream.concat(
+                        CatalogCache.instance().getCaches().stream().map(ExpiringCache::getLoads),
+                        SeatAvailabilityManager.instance().getLoads().stream())
+                .map(CoalescingStatsMapper::toDto)
+                .collect(Collectors.toList());
+        return Response.ok(stats).build();
+    }
+
+    /**
+     * Retrieves how many of the database connection pool's connections are in use, idle and waited for, and how long
+     * requests have waited for them. 404 is returned if connections don't come from the pool.
+     */
+    @GET
+    @Path("/stats/pool")
+    public Response getPoolStats() {
+        em.close();
+        BoundedConnectionProvider pool = PersistenceManager.instance().getConnectionPool();
+        if (pool == null) {
+            return Response.status(Response.Status.NOT_FOUND).build();
+        }
+        return Response.ok(PoolStatsMapper.toDto(pool)).build();
+    }
+
+    /*
+    Helper function that answers a request for one of the concert lists. If the client already has the current
+    version, 304 is returned straight away; otherwise the rendered list is fetched from the cache. Clients are told to
+    revalidate every time, as the tag is cheap to check and the catalog can change at any moment.
+     */
+    private ResponseBuilder catalogListResponse(Request request, Supplier<RenderedJson> list) {
+        CacheControl cacheControl = new CacheControl();
+        cacheControl.setNoCache(true);
+
+        EntityTag currentTag = CatalogCache.instance().getConcertsTag();
+        ResponseBuilder notModified = request.evaluatePreconditions(currentTag);
+        if (notModified != null) {
+            return notModified.tag(currentTag).cacheControl(cacheControl);
+        }
+
+        RenderedJson json = list.get();
+        return Response.ok(json.getBody(), MediaType.APPLICATION_JSON_TYPE).tag(json.getTag()).cacheControl(cacheControl);
+    }
+
+    /*
+    Helper function that loads the concerts with the given IDs, or every concert if ids is null, with their dates and
+    performers in two queries however many concerts there are. The first query fetches the dates and the second the
+    performers of the same concerts, as fetching both at once would repeat each performer for every date of its concert.
+    Setting concert.catalog.fetch to "graph" describes the same two steps with the Concert.dates and Concert.performers
+    entity graphs instead of fetch joins.
+     */
+    private List<Concert> findCatalogConcerts(List<Long> ids) {
+        if (ids != null && ids.isEmpty()) {
+            return new ArrayList<>();
+        }
+        boolean useGraphs = "graph".equals(CATALOG_FETCH);
+        String where = ids == null ? "" : " where c.id in :ids";
+
+        TypedQuery<Concert> concertQuery;
+        if (useGraphs) {
+            concertQuery = em.createQuery("select distinct c from Concert c" + where + " order by c.id", Concert.class)
+                    .setHint("javax.persistence.loadgraph", em.getEntityGraph("Concert.dates"));
+        } else {
+            concertQuery = em.createQuery("select distinct c from Concert c left join fetch c.dates" + where + " order by c.id", Concert.class);
+        }
+        if (ids != null) {
+            concertQuery.setParameter("ids", ids);
+        }
+        List<Concert> concerts = concertQuery
+                .setHint(QueryHints.HINT_PASS_DISTINCT_THROUGH, false)
+                .setHint(QueryHints.HINT_CACHEABLE, true)
+                .setHint(QueryHints.HINT_CACHE_REGION, CATALOG_QUERY_REGION)
+                .getResultList();
+        if (concerts.isEmpty()) {
+            return concerts;
+        }
+
+        // The concerts are already in the persistence context, so this only fills in their performers.
+        TypedQuery<Concert> performerQuery;
+        if (useGraphs) {
+            performerQuery = em.createQuery("select distinct c from Concert c where c in :concerts", Concert.class)
+                    .setHint("javax.persistence.loadgraph", em.getEntityGraph("Concert.performers"));
+        } else {
+            performerQuery = em.createQuery("select distinct c from Concert c left join fetch c.performers where c in :concerts", Concert.class);
+        }
+        performerQuery
+                .setParameter("concerts", concerts)
+                .setHint(QueryHints.HINT_PASS_DISTINCT_THROUGH, false)
+                .setHint(QueryHints.HINT_CACHEABLE, true)
+                .setHint(QueryHints.HINT_CACHE_REGION, CATALOG_QUERY_REGION)
+                .getResultList();
+        return concerts;
+    }
+
+    /*
+    Helper function that works out how many items a page should hold, given the limit asked for. Limits above the
+    maximum are cut down to it. Returns -1 if the limit isn't valid.
+     */
+    private static int pageSize(Integer limit) {
+        if (limit == null) {
+            return DEFAULT_PAGE_SIZE;
+        }
+        if (limit < 1) {
+            return -1;
+        }
+        return Math.min(limit, MAX_PAGE_SIZE);
+    }
+
+    /*
+    Helper function that returns one page of a list. Pages are found by ID rather than by offset, so each is a range
+    scan of an index and stays stable while items are added or removed. If there is more after this page, a Link header
+    points at the next page, whose cursor is the ID of the last item on this one.
+     */
+    private static ResponseBuilder pageResponse(List<?> page, boolean hasMore, long lastId, int pageSize, UriInfo uriInfo) {
+        ResponseBuilder pageBuilder = Response.ok(page);
+        if (hasMore) {
+            URI next = uriInfo.getRequestUriBuilder()
+                    .replaceQueryParam("after", lastId)
+                    .replaceQueryParam("limit", pageSize)
+                    .build();
+            pageBuilder.link(next, "next");
+        }
+        return pageBuilder;
+    }
+
     @POST
     @Path("/login")
     public Response login(UserDTO userDTO, @CookieParam("auth") Cookie auth) {
@@ -273,33 +531,98 @@ public class ConcertResource {
 
     @GET
     @Path("/seats/{date}")
-    public Response getSeatsForDate(@PathParam("date") LocalDateTimeParam date, @QueryParam("status") BookingStatus status, @CookieParam("auth") Cookie auth) {
-
+    public Response getSeatsForDate(@PathParam("date") LocalDateTimeParam date, @QueryParam("status") BookingStatus status, @CookieParam("auth") Cookie auth,
+                                    @Context Request request) {
+
+        // Seat labels and prices are fixed by the theatre layout, so only occupancy needs to come from the bitmap.
+        List<SeatDTO> seatDTOs = new ArrayList<>();
+        EntityTag tag = null;
+        CacheControl cacheControl = new CacheControl();
+        cacheControl.setNoCache(true);
         try {
-            tx.begin();
-            TypedQuery<Seat> seatQuery = em
-                    .createQuery("select s from Seat s where s.date = :date", Seat.class)
-                    .setParameter("date", date.getLocalDateTime());
-            List<Seat> seats = seatQuery.getResultList();
-            tx.commit();
-            List<SeatDTO> seatDTOs = new ArrayList<>();
-
-            for (Seat s: seats) {
-                if (status == BookingStatus.Booked && s.isBooked()) {
-                    seatDTOs.add(SeatMapper.toDto(s));
-                } else if (status == BookingStatus.Unbooked && !s.isBooked()) {
-                    seatDTOs.add(SeatMapper.toDto(s));
-                } else if (status == BookingStatus.Any) {
-                    seatDTOs.add(SeatMapper.toDto(s));
+            SeatAvailability availability = SeatAvailabilityManager.instance().getAvailability(date.getLocalDateTime());
+
+            if (availability != null) {
+                // The version is read before the seats, so a booking made while the list is built gives a newer tag.
+                tag = new EntityTag(SEAT_TAG_EPOCH + "-" + availability.getVersion());
+                ResponseBuilder notModified = request.evaluatePreconditions(tag);
+                if (notModified != null) {
+                    return notModified.tag(tag).cacheControl(cacheControl).build();
+                }
+
+                for (int i = 0; i < availability.getNumSeats(); i++) {
+                    boolean booked = availability.isTaken(i);
+                    if (status == BookingStatus.Any
+                            || (status == BookingStatus.Booked && booked)
+                            || (status == BookingStatus.Unbooked && !booked)) {
+                        seatDTOs.add(new SeatDTO(TheatreLayout.labelOf(i), TheatreLayout.priceBandOf(i).price));
+                    }
                 }
             }
+        } finally {
+            em.close();
+        }
+
+        return Response.ok(seatDTOs).tag(tag).cacheControl(cacheControl).build();
+    }
+
+    /**
+     * Retrieves which seats are taken for a given date, as a bitmap of one bit per seat in layout order. Served from
+     * the in-memory seat bitmap, so no query is needed. Seats that are held or are being booked count as taken, since
+     * they can't be booked.
+     */
+    @GET
+    @Path("/seats/{date}/bitmap")
+    public Response getSeatBitmapForDate(@PathParam("date") LocalDateTimeParam date) {
+
+        try {
+            SeatAvailabilityManager manager = SeatAvailabilityManager.instance();
+            PerformanceKey performance = manager.getPerformance(date.getLocalDateTime());
+            SeatAvailability availability = performance == null ? null : manager.getAvailability(performance.getConcertId(), performance.getDate());
+            if (availability == null) {
+                return Response.status(Response.Status.NOT_FOUND).build();
+            }
 
-            builder = Response.ok(seatDTOs);
+            SeatBitmapDTO bitmapDTO = new SeatBitmapDTO(
+                    performance.getConcertId(),
+                    performance.getDate(),
+                    TheatreLayout.NUM_ROWS,
+                    TheatreLayout.NUM_SEATS_PER_ROW,
+                    Base64.getEncoder().encodeToString(availability.toByteArray())
+            );
+            return Response.ok(bitmapDTO).build();
         } finally {
             em.close();
         }
+    }
 
-        return builder.build();
+    @GET
+    @Path("/seats/{date}/availability")
+    public Response getSeatAvailabilityForDate(@PathParam("date") LocalDateTimeParam date) {
+
+        try {
+            SeatAvailabilityManager manager = SeatAvailabilityManager.instance();
+            PerformanceKey performance = manager.getPerformance(date.getLocalDateTime());
+            SeatCounters counters = performance == null ? null : manager.getCounters(performance.getConcertId(), performance.getDate());
+            if (counters == null) {
+                return Response.status(Response.Status.NOT_FOUND).build();
+            }
+
+            Map<String, Integer> remainingByPriceBand = new LinkedHashMap<>();
+            for (int i = 0; i < TheatreLayout.PRICE_BANDS.length; i++) {
+                remainingByPriceBand.put(TheatreLayout.PRICE_BANDS[i].name, counters.getRemaining(i));
+            }
+
+            SeatAvailabilityDTO availabilityDTO = new SeatAvailabilityDTO(
+                    performance.getConcertId(),
+                    performance.getDate(),
+                    counters.getRemaining(),
+                    remainingByPriceBand
+            );
+            return Response.ok(availabilityDTO).build();
+        } finally {
+            em.close();
+        }
     }
 
     @POST
@@ -312,80 +635,102 @@ public class ConcertResource {
         }
         //LOGGER.debug("makeBooking(): Found cookie! UUID string: " + auth.getValue());
 
+        BookingRequest request = BookingRequestMapper.toDomainModel(bookingRequestDTO);
+
+        // Work out which seats are being requested before touching the database.
+        int[] seatIndices = toSeatIndices(request.getSeatLabels());
+        if (seatIndices == null) {
+            //LOGGER.debug("No seats found for labels " + request.getSeatLabels());
+            return Response.status(Response.Status.NOT_FOUND).build();
+        }
+
+        return placeBooking(request, auth.getValue(),
+                availability -> availability.tryReserveAll(seatIndices) ? seatIndices : null);
+    }
+
+    /**
+     * Books the best available adjacent seats in the requested price band, as chosen by the web service. Seats are
+     * taken from the frontmost row of the band that has room, as close to the centre of the row as possible.
+     */
+    @POST
+    @Path("/bookings/best-available")
+    public Response makeBestAvailableBooking(BestAvailableRequestDTO bestAvailableRequestDTO, @CookieParam("auth") Cookie auth) {
+
+        if (auth == null) {
+            return Response.status(Response.Status.UNAUTHORIZED).build();
+        }
+
+        int priceBandIndex = TheatreLayout.priceBandIndexOf(bestAvailableRequestDTO.getPriceBand());
+        int numSeats = bestAvailableRequestDTO.getNumSeats();
+        if (priceBandIndex < 0 || numSeats < 1 || numSeats > TheatreLayout.NUM_SEATS_PER_ROW) {
+            return Response.status(Response.Status.BAD_REQUEST).build();
+        }
+
+        BookingRequest request = new BookingRequest(bestAvailableRequestDTO.getConcertId(), bestAvailableRequestDTO.getDate());
+        return placeBooking(request, auth.getValue(),
+                availability -> SeatAllocator.reserveBestAvailable(availability, priceBandIndex, numSeats));
+    }
+
+    /*
+    Helper function that carries out a booking once the requested seats are known. The given claim function picks and
+    claims seats in the performance's bitmap while the performance is locked, returning the claimed seat indices, or
+    null if the seats aren't available. The request's seat labels are then set to match the claimed seats.
+     */
+    private Response placeBooking(BookingRequest request, String uuid, Function<SeatAvailability, int[]> claim) {
+
+        SeatAvailability availability = null;
+        int[] seatIndices = null;
+        Lock performanceLock = null;
         try {
             tx.begin();
 
-            BookingRequest request = BookingRequestMapper.toDomainModel(bookingRequestDTO);
-            //LOGGER.debug("" + request.getSeatLabels() + " " + request.getSeatLabels().size());
-            TypedQuery<Concert> concertQuery = em
-                    .createQuery("select c from Concert c where c.id = :id", Concert.class)
-                    .setParameter("id", request.getConcertId());
-            Concert concert = concertQuery.getSingleResult();
-            List<Concert> concerts = concertQuery.getResultList();
-
-            concert = null;
-            for (Concert c: concerts) {
-                for (LocalDateTime d: c.getDates()) {
-                    if (d.equals(bookingRequestDTO.getDate())) {
-                        concert = c;
-                        break;
-                    }
-                }
-            }
-            if (concert == null) {
+            Concert concert = em.find(Concert.class, request.getConcertId());
+            if (concert == null || !concert.getDates().contains(request.getDate())) {
                 return Response.status(Response.Status.BAD_REQUEST).build();
             }
 
             TypedQuery<User> userQuery = em
                     .createQuery("select u from User u where u.uuid = :uuid", User.class)
-                    .setParameter("uuid", auth.getValue());
+                    .setParameter("uuid", uuid);
             User user = userQuery.getSingleResult();
             //LOGGER.debug("makeBooking(): Found user " + user.getUsername() + " with UUID " + user.getUuid());
+            tx.commit();
 
-            Set<Seat> seatsToBook = new HashSet<>();
-            for (String label: request.getSeatLabels()) {
-                TypedQuery<Seat> seatQuery = em
-                        .createQuery("select s from Seat s where s.label = :label and s.date = :date", Seat.class)
-                        .setParameter("label", label)
-                        .setParameter("date", request.getDate());
-                List<Seat> seats = seatQuery.getResultList();
-
-                if (seats.isEmpty()) {
-                    //LOGGER.debug("No seats found for label " + label + " and date " + request.getDate());
-                    return Response.status(Response.Status.NOT_FOUND).build();
-                }
+            availability = SeatAvailabilityManager.instance().getAvailability(request.getConcertId(), request.getDate());
+            if (availability == null) {
+                //LOGGER.debug("No seats found for date " + request.getDate());
+                return Response.status(Response.Status.NOT_FOUND).build();
+            }
 
-                for (Seat s : seats) {
-                    if (s.getLabel().equals(label) && !s.isBooked()) {
-                        s.setBooked(true);
-                        s.setBookingStatus(BookingStatus.Booked);
-                        seatsToBook.add(s);
-                        em.merge(s);
-                    } else {
-                        //LOGGER.debug("Seat " + label + " is already booked.");
-                        return Response.status(Response.Status.FORBIDDEN).build();
-                    }
+            // Bookings for the same performance are serialized from here until commit. Other performances have their
+            // own locks, so they aren't held up.
+            performanceLock = BookingCoordinator.instance().getLock(request.getConcertId(), request.getDate());
+            performanceLock.lock();
+
+            // Claim the seats in memory first. Only the winner of every seat goes on to write to the database.
+            seatIndices = claim.apply(availability);
+            if (seatIndices == null) {
+                //LOGGER.debug("makeBooking(): Seats " + request.getSeatLabels() + " are already booked.");
+                builder = Response.status(Response.Status.FORBIDDEN);
+                if (!request.getSeatLabels().isEmpty()) {
+                    builder.entity(seatConflict(availability, toSeatIndices(request.getSeatLabels())));
                 }
+                return builder.build();
             }
+            request.setSeatLabels(toSeatLabels(seatIndices));
 
-            Booking booking = new Booking(
-                    request.getConcertId(),
-                    request.getDate(),
-                    seatsToBook
-            );
-            booking.setUserId(user.getId());
-            user.addBooking(booking);
-            em.persist(booking);
-            em.merge(user);
-
-            List<Seat> remainingSeats = em.createQuery("select s from Seat s where s.date = :date and s.isBooked = :isBooked", Seat.class)
-                    .setParameter("date", booking.getDate())
-                    .setParameter("isBooked", false)
-                    .getResultList();
+            Booking booking = writeBooking(request, user.getId(), performanceLock);
+            if (booking == null) {
+                return Response.status(Response.Status.CONFLICT).build();
+            }
+            int[] booked = seatIndices;
+            seatIndices = null;
+
+            SeatCounters counters = availability.getCounters();
+            counters.recordBooked(booked);
             if (subs.size() != 0) {
-                notification(booking.getConcertId(), remainingSeats.size());
+                notification(booking.getConcertId(), counters.getRemaining());
             }
-            tx.commit();
 
             //LOGGER.debug("makeBooking(): Created booking with ID " + booking.getBookingId() + " for concert ID " + booking.getConcertId() + " attached to User ID " + booking.getUserId());
             builder = Response
@@ -397,16 +742,530 @@ public class ConcertResource {
             return Response.status(Response.Status.BAD_REQUEST).build();
         }
         finally {
+            // If the seats were claimed but the booking never committed, hand them back.
+            if (seatIndices != null) {
+                availability.releaseAll(seatIndices);
+            }
+            if (tx.isActive()) {
+                tx.rollback();
+            }
+            if (performanceLock != null) {
+                performanceLock.unlock();
+            }
             em.close();
         }
 
         return builder.build();
     }
 
+    /**
+     * Makes many bookings at once on behalf of the logged-in user. The requests are validated together, then grouped
+     * by performance, and each group is written in a single transaction. Every request gets its own result, with the
+     * status it would have received had it been made on its own through makeBooking. A request that couldn't be
+     * written because of a database failure gets 500, without affecting the results of the requests already booked.
+     */
+    @POST
+    @Path("/bookings/batch")
+    public Response makeBookings(List<BookingRequestDTO> bookingRequestDTOs, @CookieParam("auth") Cookie auth) {
+
+        if (auth == null) {
+            return Response.status(Response.Status.UNAUTHORIZED).build();
+        }
+        if (bookingRequestDTOs == null || bookingRequestDTOs.isEmpty() || bookingRequestDTOs.size() > MAX_BATCH_SIZE) {
+            return Response.status(Response.Status.BAD_REQUEST).build();
+        }
+
+        List<BookingRequest> requests = new ArrayList<>(bookingRequestDTOs.size());
+        for (BookingRequestDTO dto : bookingRequestDTOs) {
+            requests.add(BookingRequestMapper.toDomainModel(dto));
+        }
+        BookingResultDTO[] results = new BookingResultDTO[requests.size()];
+        int[][] seatIndices = new int[requests.size()][];
+
+        try {
+            tx.begin();
+            User user = em
+                    .createQuery("select u from User u where u.uuid = :uuid", User.class)
+                    .setParameter("uuid", auth.getValue())
+                    .getSingleResult();
+
+            // Look up every concert in the batch with one query, rather than one per request.
+            Set<Long> concertIds = requests.stream().map(BookingRequest::getConcertId).collect(Collectors.toSet());
+            Map<Long, Concert> concerts = em
+                    .createQuery("select c from Concert c where c.id in :ids", Concert.class)
+                    .setParameter("ids", concertIds)
+                    .getResultList()
+                    .stream()
+                    .collect(Collectors.toMap(Concert::getId, c -> c));
+            tx.commit();
+
+            Map<PerformanceKey, List<Integer>> groups = new LinkedHashMap<>();
+            for (int i = 0; i < requests.size(); i++) {
+                BookingRequest request = requests.get(i);
+                Concert concert = concerts.get(request.getConcertId());
+                if (concert == null || !concert.getDates().contains(request.getDate())) {
+                    results[i] = new BookingResultDTO(i, Response.Status.BAD_REQUEST.getStatusCode(), null);
+                    continue;
+                }
+                seatIndices[i] = toSeatIndices(request.getSeatLabels());
+                if (seatIndices[i] == null) {
+                    results[i] = new BookingResultDTO(i, Response.Status.NOT_FOUND.getStatusCode(), null);
+                    continue;
+                }
+                groups.computeIfAbsent(new PerformanceKey(request.getConcertId(), request.getDate()), k -> new ArrayList<>())
+                        .add(i);
+            }
+
+            for (Map.Entry<PerformanceKey, List<Integer>> group : groups.entrySet()) {
+                try {
+                    bookGroup(group.getKey(), group.getValue(), requests, seatIndices, user.getId(), results);
+                } catch (PersistenceException e) {
+                    // Earlier groups are already committed, so fail only this group's unfinished requests.
+                    LOGGER.error("makeBookings(): Failed to book a group of " + group.getValue().size()
+                            + " bookings for " + group.getKey().getDate(), e);
+                    for (int i : group.getValue()) {
+                        if (results[i] == null) {
+                            results[i] = new BookingResultDTO(i, Response.Status.INTERNAL_SERVER_ERROR.getStatusCode(), null);
+                        }
+                    }
+                }
+            }
+        }
+        catch (NoResultException e) {
+            return Response.status(Response.Status.BAD_REQUEST).build();
+        }
+        finally {
+            if (tx.isActive()) {
+                tx.rollback();
+            }
+            em.close();
+        }
+
+        return Response.ok(Arrays.asList(results)).build();
+    }
+
+    /*
+    Helper function that books one performance's share of a batch. The performance is locked once for the whole group,
+    the seats for each request are claimed in memory, and all the successful claims are written together. If the group
+    can't be written as a whole, each booking is retried on its own so that one bad request doesn't fail the rest. A
+    booking that still fails with a database error gets 500, and one that conflicts gets 409.
+     */
+    private void bookGroup(PerformanceKey key, List<Integer> items, List<BookingRequest> requests, int[][] seatIndices,
+                           long userId, BookingResultDTO[] results) {
+
+        SeatAvailability availability = SeatAvailabilityManager.instance().getAvailability(key.getConcertId(), key.getDate());
+        if (availability == null) {
+            for (int i : items) {
+                results[i] = new BookingResultDTO(i, Response.Status.NOT_FOUND.getStatusCode(), null);
+            }
+            return;
+        }
+
+        List<Integer> reserved = new ArrayList<>();
+        Lock performanceLock = BookingCoordinator.instance().getLock(key.getConcertId(), key.getDate());
+        performanceLock.lock();
+        try {
+            // Earlier requests in the batch win over later ones, just as if they had been sent one after another.
+            for (int i : items) {
+                if (availability.tryReserveAll(seatIndices[i])) {
+                    reserved.add(i);
+                } else {
+                    results[i] = new BookingResultDTO(i, Response.Status.FORBIDDEN.getStatusCode(), null);
+                }
+            }
+            if (reserved.isEmpty()) {
+                return;
+            }
+
+            List<BookingRequest> toWrite = reserved.stream().map(requests::get).collect(Collectors.toList());
+            List<Booking> bookings = null;
+            try {
+                bookings = writeBookings(key.getDate(), toWrite, userId, performanceLock);
+            } catch (PersistenceException e) {
+                LOGGER.warn("bookGroup(): Failed to write a group of " + toWrite.size() + " bookings for "
+                        + key.getDate() + ", writing them one at a time", e);
+            }
+
+            SeatCounters counters = availability.getCounters();
+            for (int j = 0; j < reserved.size(); j++) {
+                int i = reserved.get(j);
+                Booking booking;
+                if (bookings != null) {
+                    booking = bookings.get(j);
+                } else {
+                    try {
+                        booking = writeBooking(requests.get(i), userId, performanceLock);
+                    } catch (PersistenceException e) {
+                        LOGGER.error("bookGroup(): Failed to write " + requests.get(i).getSeatLabels() + " for "
+                                + key.getDate(), e);
+                        results[i] = new BookingResultDTO(i, Response.Status.INTERNAL_SERVER_ERROR.getStatusCode(), null);
+                        continue;
+                    }
+                }
+                if (booking == null) {
+                    results[i] = new BookingResultDTO(i, Response.Status.CONFLICT.getStatusCode(), null);
+                } else {
+                    counters.recordBooked(seatIndices[i]);
+                    results[i] = new BookingResultDTO(i, Response.Status.CREATED.getStatusCode(), BookingMapper.toDto(booking));
+                }
+            }
+            if (subs.size() != 0) {
+                notification(key.getConcertId(), counters.getRemaining());
+            }
+        } finally {
+            // Hand back the seats of any request that was claimed but never committed.
+            for (int i : reserved) {
+                if (results[i] == null || results[i].getStatus() != Response.Status.CREATED.getStatusCode()) {
+                    availability.releaseAll(seatIndices[i]);
+                }
+            }
+            performanceLock.unlock();
+        }
+    }
+
+
+    @POST
+    @Path("/holds")
+    public Response holdSeats(BookingRequestDTO holdRequestDTO, @QueryParam("ttl") long ttlSeconds, @CookieParam("auth") Cookie auth) {
+
+        if (auth == null) {
+            return Response.status(Response.Status.UNAUTHORIZED).build();
+        }
+
+        BookingRequest request = BookingRequestMapper.toDomainModel(holdRequestDTO);
+        int[] seatIndices = toSeatIndices(request.getSeatLabels());
+        if (seatIndices == null) {
+            return Response.status(Response.Status.NOT_FOUND).build();
+        }
+
+        try {
+            tx.begin();
+            Concert concert = em.find(Concert.class, request.getConcertId());
+            if (concert == null || !concert.getDates().contains(request.getDate())) {
+                return Response.status(Response.Status.BAD_REQUEST).build();
+            }
+
+            // Make sure the cookie belongs to a real user before letting them tie up any seats.
+            em.createQuery("select u from User u where u.uuid = :uuid", User.class)
+                    .setParameter("uuid", auth.getValue())
+                    .getSingleResult();
+            tx.commit();
+
+            SeatAvailability availability = SeatAvailabilityManager.instance().getAvailability(request.getConcertId(), request.getDate());
+            if (availability == null) {
+                return Response.status(Response.Status.NOT_FOUND).build();
+            }
+
+            SeatHold hold = SeatHoldManager.instance().hold(
+                    auth.getValue(),
+                    new PerformanceKey(request.getConcertId(), request.getDate()),
+                    availability,
+                    seatIndices,
+                    request.getSeatLabels(),
+                    ttlSeconds
+            );
+            if (hold == null) {
+                return Response.status(Response.Status.FORBIDDEN).entity(seatConflict(availability, seatIndices)).build();
+            }
+
+            return Response
+                    .created(URI.create("/concert-service/holds/" + hold.getId()))
+                    .entity(SeatHoldMapper.toDto(hold))
+                    .build();
+        } catch (NoResultException e) {
+            return Response.status(Response.Status.BAD_REQUEST).build();
+        } finally {
+            if (tx.isActive()) {
+                tx.rollback();
+            }
+            em.close();
+        }
+    }
+
+    @PUT
+    @Path("/holds/{id}")
+    public Response extendHold(@PathParam("id") String id, @QueryParam("ttl") long ttlSeconds, @CookieParam("auth") Cookie auth) {
+
+        if (auth == null) {
+            em.close();
+            return Response.status(Response.Status.UNAUTHORIZED).build();
+        }
+
+        try {
+            SeatHold hold = SeatHoldManager.instance().get(id);
+            if (hold == null) {
+                builder = Response.status(Response.Status.NOT_FOUND);
+            } else if (!hold.getOwner().equals(auth.getValue())) {
+                builder = Response.status(Response.Status.FORBIDDEN);
+            } else if (!SeatHoldManager.instance().extend(hold, ttlSeconds)) {
+                builder = Response.status(Response.Status.NOT_FOUND);
+            } else {
+                builder = Response.ok(SeatHoldMapper.toDto(hold));
+            }
+        } finally {
+            em.close();
+        }
+
+        return builder.build();
+    }
+
+    @DELETE
+    @Path("/holds/{id}")
+    public Response releaseHold(@PathParam("id") String id, @CookieParam("auth") Cookie auth) {
+
+        if (auth == null) {
+            em.close();
+            return Response.status(Response.Status.UNAUTHORIZED).build();
+        }
+
+        try {
+            SeatHold hold = SeatHoldManager.instance().get(id);
+            if (hold == null) {
+                builder = Response.status(Response.Status.NOT_FOUND);
+            } else if (!hold.getOwner().equals(auth.getValue())) {
+                builder = Response.status(Response.Status.FORBIDDEN);
+            } else if (!SeatHoldManager.instance().release(hold)) {
+                builder = Response.status(Response.Status.NOT_FOUND);
+            } else {
+                builder = Response.noContent();
+            }
+        } finally {
+            em.close();
+        }
+
+        return builder.build();
+    }
+
+    /**
+     * Turns a hold into a booking. The seats are already claimed, so all that is left is the durable write.
+     */
+    @POST
+    @Path("/holds/{id}/booking")
+    public Response bookHeldSeats(@PathParam("id") String id, @CookieParam("auth") Cookie auth) {
+
+        if (auth == null) {
+            em.close();
+            return Response.status(Response.Status.UNAUTHORIZED).build();
+        }
+
+        SeatHoldManager holds = SeatHoldManager.instance();
+        SeatHold hold = holds.get(id);
+        boolean claimed = false;
+        Lock performanceLock = null;
+        try {
+            if (hold == null) {
+                return Response.status(Response.Status.NOT_FOUND).build();
+            } else if (!hold.getOwner().equals(auth.getValue())) {
+                return Response.status(Response.Status.FORBIDDEN).build();
+            }
+
+            tx.begin();
+            User user = em.createQuery("select u from User u where u.uuid = :uuid", User.class)
+                    .setParameter("uuid", auth.getValue())
+                    .getSingleResult();
+            tx.commit();
+
+            PerformanceKey performance = hold.getPerformance();
+            performanceLock = BookingCoordinator.instance().getLock(performance.getConcertId(), performance.getDate());
+            performanceLock.lock();
+
+            // The hold may have expired while we waited.
+            claimed = holds.claim(hold);
+            if (!claimed) {
+                return Response.status(Response.Status.NOT_FOUND).build();
+            }
+
+            BookingRequest request = new BookingRequest(performance.getConcertId(), performance.getDate(), hold.getSeatLabels());
+            Booking booking = writeBooking(request, user.getId(), performanceLock);
+            if (booking == null) {
+                return Response.status(Response.Status.CONFLICT).build();
+            }
+            claimed = false;
+
+            SeatCounters counters = hold.getAvailability().getCounters();
+            counters.recordHoldBooked(hold.getSeatIndices());
+            if (subs.size() != 0) {
+                notification(booking.getConcertId(), counters.getRemaining());
+            }
+
+            return Response
+                    .created(URI.create("/concert-service/bookings/" + booking.getBookingId()))
+                    .entity(BookingMapper.toDto(booking))
+                    .build();
+        } catch (NoResultException e) {
+            return Response.status(Response.Status.BAD_REQUEST).build();
+        } finally {
+            // If the hold was taken over but the booking never committed, hand its seats back.
+            if (claimed) {
+                hold.getAvailability().releaseAll(hold.getSeatIndices());
+                hold.getAvailability().getCounters().recordHoldReleased(hold.getSeatIndices());
+            }
+            if (tx.isActive()) {
+                tx.rollback();
+            }
+            if (performanceLock != null) {
+                performanceLock.unlock();
+            }
+            em.close();
+        }
+    }
+
+    /*
+    Helper function that converts seat labels to their positions in the theatre layout. Returns null if any label
+    doesn't name a seat.
+     */
+    private static int[] toSeatIndices(List<String> seatLabels) {
+        int[] seatIndices = new int[seatLabels.size()];
+        for (int i = 0; i < seatIndices.length; i++) {
+            seatIndices[i] = TheatreLayout.indexOf(seatLabels.get(i));
+            if (seatIndices[i] < 0) {
+                return null;
+            }
+        }
+        return seatIndices;
+    }
+
+    /*
+    Helper function that describes why the given seats couldn't be claimed, and what could be asked for instead. Worked
+    out from the performance's bitmap alone, without going to the database.
+     */
+    private static SeatConflictDTO seatConflict(SeatAvailability availability, int[] seatIndices) {
+        List<String> conflicting = new ArrayList<>();
+        for (int index : seatIndices) {
+            if (availability.isTaken(index)) {
+                conflicting.add(TheatreLayout.labelOf(index));
+            }
+        }
+
+        int[] suggested = SeatAllocator.suggestAlternatives(availability, seatIndices);
+        return new SeatConflictDTO(conflicting, suggested == null ? new ArrayList<>() : toSeatLabels(suggested));
+    }
+
+    /*
+    Helper function that converts positions in the theatre layout back to seat labels.
+     */
+    private static List<String> toSeatLabels(int[] seatIndices) {
+        List<String> seatLabels = new ArrayList<>(seatIndices.length);
+        for (int index : seatIndices) {
+            seatLabels.add(TheatreLayout.labelOf(index));
+        }
+        return seatLabels;
+    }
+
+    /*
+    Helper function that writes a booking whose seats have already been claimed in memory, while the caller holds the
+    performance's lock. A version conflict on a seat can only come from a write that bypassed the booking path (the
+    claim keeps other bookings off these seats), and is retried with backoff. The lock is released during the backoff;
+    the seats stay claimed in memory meanwhile, so they don't need claiming again. Finding a seat already booked in the
+    database is a real conflict, and fails straight away. Returns null if the booking could not be written, in which
+    case the caller still owns the claimed seats.
+     */
+    private Booking writeBooking(BookingRequest request, long userId, Lock performanceLock) {
+        try {
+            return BOOKING_RETRY_POLICY.call(() -> persistBooking(request, userId), performanceLock);
+        } catch (OptimisticLockException e) {
+            LOGGER.warn("writeBooking(): Gave up on " + request.getSeatLabels() + " for " + request.getDate() + " after "
+                    + BOOKING_RETRY_POLICY.getMaxAttempts() + " attempts");
+            return null;
+        }
+    }
+
+    /*
+    Helper function that writes a group of bookings for the same date, whose seats have already been claimed in
+    memory, in a single transaction. Retried with backoff on a version conflict, like writeBooking, without holding the
+    performance's lock while backing off. Returns null if the group could not be written, in which case the caller
+    still owns all of the claimed seats.
+     */
+    private List<Booking> writeBookings(LocalDateTime date, List<BookingRequest> requests, long userId,
+                                        Lock performanceLock) {
+        try {
+            return BOOKING_RETRY_POLICY.call(() -> persistBookings(date, requests, userId), performanceLock);
+        } catch (OptimisticLockException e) {
+            LOGGER.warn("writeBookings(): Gave up on a group of " + requests.size() + " bookings for " + date + " after "
+                    + BOOKING_RETRY_POLICY.getMaxAttempts() + " attempts");
+            return null;
+        }
+    }
+
+    /*
+    Helper function that durably writes a booking whose seats have already been claimed in memory. Runs in its own
+    transaction so that it can be retried. Returns null if any of the seats turns out to be booked already, or to have
+    no row in the database.
+     */
+    private Booking persistBooking(BookingRequest request, long userId) {
+        List<Booking> bookings = persistBookings(request.getDate(), Collections.singletonList(request), userId);
+        return bookings == null ? null : bookings.get(0);
+    }
+
+    /*
+    Helper function that durably writes a group of bookings for the same date in one transaction. All of the seats are
+    fetched with a single query, and the seat updates and booking inserts go out as JDBC batches (see
+    hibernate.jdbc.batch_size in persistence.xml). Returns the bookings in request order, or null if any of the seats
+    turns out to be booked already, or to have no row in the database, so that no booking is ever written with fewer
+    seats than were asked for.
+     */
+    private List<Booking> persistBookings(LocalDateTime date, List<BookingRequest> requests, long userId) {
+        EntityManager em = PersistenceManager.instance().createEntityManager();
+        EntityTransaction tx = em.getTransaction();
+        try {
+            tx.begin();
+            Set<String> labels = new HashSet<>();
+            for (BookingRequest request : requests) {
+                labels.addAll(request.getSeatLabels());
+            }
+            List<Seat> seats = em
+                    .createQuery("select s from Seat s where s.date = :date and s.label in :labels", Seat.class)
+                    .setParameter("date", date)
+                    .setParameter("labels", labels)
+                    .getResultList();
+            if (seats.size() != labels.size()) {
+                return null;
+            }
+
+            Map<String, Seat> seatsByLabel = new HashMap<>();
+            for (Seat s : seats) {
+                if (s.isBooked()) {
+                    return null;
+                }
+                seatsByLabel.put(s.getLabel(), s);
+            }
+
+            List<Booking> bookings = new ArrayList<>(requests.size());
+            for (BookingRequest request : requests) {
+                Set<Seat> seatsToBook = new HashSet<>();
+                for (String label : request.getSeatLabels()) {
+                    Seat s = seatsByLabel.get(label);
+                    s.setBooked(true);
+                    s.setBookingStatus(BookingStatus.Booked);
+                    seatsToBook.add(s);
+                }
+
+                Booking booking = new Booking(
+                        request.getConcertId(),
+                        request.getDate(),
+                        seatsToBook
+                );
+                booking.setUserId(userId);
+                em.persist(booking);
+                bookings.add(booking);
+            }
+
+            // Flushing first surfaces a stale seat version as an OptimisticLockException rather than a rollback.
+            em.flush();
+            tx.commit();
+            return bookings;
+        } finally {
+            if (tx.isActive()) {
+                tx.rollback();
+            }
+            em.close();
+        }
+    }
 
     @GET
     @Path("/bookings")
-    public Response getAllBookingsForUser(@CookieParam("auth") Cookie auth) {
+    public Response getAllBookingsForUser(@CookieParam("auth") Cookie auth, @Context UriInfo uriInfo,
+                                          @QueryParam("after") Long after, @QueryParam("limit") Integer limit) {
 
         // TODO for testGetOwnBookingById, it cant seem to find logged in user through auth as auth = null. other test cases passed fine
         //LOGGER.debug("getAllBookingsForUser(): Cookie: " + auth);
@@ -424,6 +1283,26 @@ public class ConcertResource {
                 User u = userQuery.getSingleResult();
                 //LOGGER.debug("getAllBookingsForUser(): Found user " + u.getUsername() + " with UUID " + u.getUuid());
 
+                if (after != null || limit != null) {
+                    int pageSize = pageSize(limit);
+                    if (pageSize < 0) {
+                        tx.rollback();
+                        return Response.status(Response.Status.BAD_REQUEST).build();
+                    }
+                    List<Long> ids = em
+                            .createQuery("select b.bookingId from Booking b where b.userId = :userId and b.bookingId > :after order by b.bookingId", Long.class)
+                            .setParameter("userId", u.getId())
+                            .setParameter("after", after == null ? Long.MIN_VALUE : after)
+                            .setMaxResults(pageSize + 1)
+                            .getResultList();
+                    boolean hasMore = ids.size() > pageSize;
+                    List<BookingDTO> bookingDTOs = findBookingsWithSeats(ids.subList(0, Math.min(ids.size(), pageSize))).stream()
+                            .map(BookingMapper::toDto)
+                            .collect(Collectors.toList());
+                    tx.commit();
+                    return pageResponse(bookingDTOs, hasMore, hasMore ? ids.get(pageSize - 1) : 0, pageSize, uriInfo).build();
+                }
+
                 TypedQuery<Booking> bookingQuery = em
                         .createQuery("select b from Booking b where b.userId = :userId", Booking.class)
                         .setParameter("userId", u.getId());
@@ -446,6 +1325,20 @@ public class ConcertResource {
         return builder.build();
     }
 
+    /*
+    Helper function that loads the bookings with the given IDs, in order of ID, along with their seats in the same query.
+     */
+    private List<Booking> findBookingsWithSeats(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return new ArrayList<>();
+        }
+        return em
+                .createQuery("select distinct b from Booking b left join fetch b.seats where b.bookingId in :ids order by b.bookingId", Booking.class)
+                .setParameter("ids", ids)
+                .setHint(QueryHints.HINT_PASS_DISTINCT_THROUGH, false)
+                .getResultList();
+    }
+
     @GET
     @Path("/bookings/{id}")
     public Response getSingleBookingForUser(@PathParam("id") Long id, @CookieParam("auth") Cookie auth) {
@@ -480,6 +1373,110 @@ public class ConcertResource {
         }
     }
 
+    /**
+     * Cancels one of the logged-in user's bookings, making its seats available again. The seats are freed in the
+     * database with a single bulk update, and in memory without any further queries, so the cost doesn't grow with
+     * the number of bookings.
+     */
+    @DELETE
+    @Path("/bookings/{id}")
+    public Response cancelBooking(@PathParam("id") long id, @CookieParam("auth") Cookie auth) {
+
+        if (auth == null) {
+            return Response.status(Response.Status.UNAUTHORIZED).build();
+        }
+
+        Lock performanceLock = null;
+        try {
+            tx.begin();
+            User user = em
+                    .createQuery("select u from User u where u.uuid = :uuid", User.class)
+                    .setParameter("uuid", auth.getValue())
+                    .getSingleResult();
+            Booking booking = em.find(Booking.class, id);
+            tx.commit();
+
+            if (booking == null) {
+                return Response.status(Response.Status.NOT_FOUND).build();
+            }
+            if (!Objects.equals(booking.getUserId(), user.getId())) {
+                return Response.status(Response.Status.FORBIDDEN).build();
+            }
+
+            int[] seatIndices = toSeatIndices(booking.getSeats().stream().map(Seat::getLabel).collect(Collectors.toList()));
+
+            performanceLock = BookingCoordinator.instance().getLock(booking.getConcertId(), booking.getDate());
+            performanceLock.lock();
+
+            // Make sure the bitmap is loaded while it still shows the seats as booked, so they're only released once.
+            SeatAvailability availability = SeatAvailabilityManager.instance().getAvailability(booking.getConcertId(), booking.getDate());
+            if (!removeBooking(id)) {
+                // Someone else got there first.
+                return Response.status(Response.Status.NOT_FOUND).build();
+            }
+
+            if (availability != null && seatIndices != null) {
+                availability.releaseAll(seatIndices);
+                SeatCounters counters = availability.getCounters();
+                counters.recordReleased(seatIndices);
+                if (subs.size() != 0) {
+                    notification(booking.getConcertId(), counters.getRemaining());
+                }
+            }
+
+            builder = Response.noContent();
+        }
+        catch (NoResultException e) {
+            return Response.status(Response.Status.BAD_REQUEST).build();
+        }
+        finally {
+            if (tx.isActive()) {
+                tx.rollback();
+            }
+            if (performanceLock != null) {
+                performanceLock.unlock();
+            }
+            em.close();
+        }
+
+        return builder.build();
+    }
+
+    /*
+    Helper function that deletes a booking and frees its seats in the database, in its own transaction. All of the
+    seats are freed by one bulk update, rather than one update per seat. Returns false if there is no such booking.
+     */
+    private boolean removeBooking(long bookingId) {
+        EntityManager em = PersistenceManager.instance().createEntityManager();
+        EntityTransaction tx = em.getTransaction();
+        try {
+            tx.begin();
+            Booking booking = em.find(Booking.class, bookingId);
+            if (booking == null) {
+                return false;
+            }
+
+            List<Long> seatIds = booking.getSeats().stream().map(Seat::getId).collect(Collectors.toList());
+            if (!seatIds.isEmpty()) {
+                em.createQuery("update Seat s set s.isBooked = false, s.bookingStatus = :status, s.version = s.version + 1 where s.id in :ids")
+                        .setParameter("status", BookingStatus.Unbooked)
+                        .setParameter("ids", seatIds)
+                        .executeUpdate();
+            }
+
+            // Unlink the seats first, otherwise removing the booking would cascade to them.
+            booking.getSeats().clear();
+            em.remove(booking);
+            tx.commit();
+            return true;
+        } finally {
+            if (tx.isActive()) {
+                tx.rollback();
+            }
+            em.close();
+        }
+    }
+
     @GET
     public void notification(long concertId, long remainingSeats) {
         synchronized (subs) {
@@ -0,0 +1,158 @@
+package proj.concert.service.services;
+
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.MultivaluedHashMap;
+import javax.ws.rs.core.MultivaluedMap;
+import java.lang.reflect.Type;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Singleton class that remembers the outcome of requests made with an Idempotency-Key header, so that a client
+ * retrying after a timeout gets the original response back rather than a second booking (or a 403 because its own
+ * seats now look taken).
+ * <p>
+ * The cache is bounded in size, and entries are evicted once they are older than the configured time to live. Since
+ * every entry lives for the same length of time, insertion order is also expiry order, so eviction only ever needs
+ * to look at the oldest entries.
+ */
+public class IdempotencyCache {
+
+    private static IdempotencyCache instance = null;
+
+    public static final int MAX_ENTRIES = Integer.getInteger("concert.idempotency.maxEntries", 10000);
+    public static final long TTL_MILLIS = Long.getLong("concert.idempotency.ttlSeconds", 3600) * 1000;
+
+    // A request still in flight after this long is assumed to have died without a response, and may be retried.
+    public static final long IN_FLIGHT_TIMEOUT_MILLIS = 60 * 1000;
+
+    private final Map<String, Entry> entries = new LinkedHashMap<>();
+
+    protected IdempotencyCache() {
+    }
+
+    public static synchronized IdempotencyCache instance() {
+        if (instance == null) {
+            instance = new IdempotencyCache();
+        }
+        return instance;
+    }
+
+    /**
+     * Registers a new request under the given key, unless there is already one.
+     *
+     * @param key         the idempotency key, scoped to the client that sent it
+     * @param fingerprint identifies the request itself, so that a key reused for a different request can be detected
+     * @return the existing entry for the key, which may still be in flight, or null if the caller now owns the key and
+     * should go on to carry out the request
+     */
+    public synchronized Entry begin(String key, String fingerprint) {
+        long now = System.currentTimeMillis();
+        evictExpired(now);
+
+        Entry existing = entries.get(key);
+        if (existing != null && !(existing.isInFlight() && now - existing.createdAt > IN_FLIGHT_TIMEOUT_MILLIS)) {
+            return existing;
+        }
+
+        // Remove first, so that the new entry goes to the back of the queue.
+        entries.remove(key);
+        entries.put(key, new Entry(fingerprint, now));
+        if (entries.size() > MAX_ENTRIES) {
+            Iterator<Entry> it = entries.values().iterator();
+            it.next();
+            it.remove();
+        }
+        return null;
+    }
+
+    /**
+     * Records the response to the request registered under the given key, to be replayed for any retries. The
+     * headers are copied, and include any cookies the response sets.
+     */
+    public synchronized void complete(String key, int status, Object entity, Type entityType, MediaType mediaType,
+                                      MultivaluedMap<String, String> headers) {
+        Entry entry = entries.get(key);
+        if (entry != null && entry.isInFlight()) {
+            entry.entity = entity;
+            entry.entityType = entityType;
+            entry.mediaType = mediaType;
+            entry.headers = new MultivaluedHashMap<>(headers);
+            entry.status = status;
+        }
+    }
+
+    /**
+     * Forgets the request registered under the given key, so that it may be retried from scratch. Used when the
+     * request failed in a way that is worth retrying.
+     */
+    public synchronized void abandon(String key) {
+        Entry entry = entries.get(key);
+        if (entry != null && entry.isInFlight()) {
+            entries.remove(key);
+        }
+    }
+
+    /**
+     * Discards all entries. Called whenever the database is re-created, since any remembered responses refer to data
+     * which no longer exists.
+     */
+    public synchronized void clear() {
+        entries.clear();
+    }
+
+    private void evictExpired(long now) {
+        Iterator<Entry> it = entries.values().iterator();
+        while (it.hasNext() && now - it.next().createdAt > TTL_MILLIS) {
+            it.remove();
+        }
+    }
+
+    /**
+     * The remembered outcome of a single request. The status is 0 until the request has completed. It is volatile
+     * and written last, so anyone who sees it set also sees the rest of the response.
+     */
+    public static class Entry {
+        private final String fingerprint;
+        private final long createdAt;
+        private volatile int status;
+        private Object entity;
+        private Type entityType;
+        private MediaType mediaType;
+        private MultivaluedMap<String, String> headers;
+
+        private Entry(String fingerprint, long createdAt) {
+            this.fingerprint = fingerprint;
+            this.createdAt = createdAt;
+        }
+
+        public String getFingerprint() {
+            return fingerprint;
+        }
+
+        public boolean isInFlight() {
+            return status == 0;
+        }
+
+        public int getStatus() {
+            return status;
+        }
+
+        public Object getEntity() {
+            return entity;
+        }
+
+        public Type getEntityType() {
+            return entityType;
+        }
+
+        public MediaType getMediaType() {
+            return mediaType;
+        }
+
+        public MultivaluedMap<String, String> getHeaders() {
+            return headers;
+        }
+    }
+}
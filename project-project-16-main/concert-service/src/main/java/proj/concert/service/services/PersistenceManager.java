@@ -1,8 +1,22 @@
 package proj.concert.service.services;
 
+import org.hibernate.SessionFactory;
+import org.hibernate.cache.spi.RegionFactory;
+import org.hibernate.engine.jdbc.connections.spi.ConnectionProvider;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.stat.Statistics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import proj.concert.service.hibernate.BoundedConnectionProvider;
+import proj.concert.service.hibernate.InProcessRegionFactory;
+import proj.concert.service.util.DatabaseProfile;
+import proj.concert.service.util.ExpiringCache;
+
 import javax.persistence.EntityManager;
 import javax.persistence.EntityManagerFactory;
 import javax.persistence.Persistence;
+import java.util.Collections;
+import java.util.List;
 
 /**
  * Singleton class that manages an EntityManagerFactory. When a
@@ -14,21 +28,58 @@ import javax.persistence.Persistence;
  * persistence context, it should call the PersistentManager's
  * createEntityManager() method to acquire one.
  * <p>
- * This class is complete - you do not need to modify it.
+ * Which database the EntityManagerFactory uses is chosen at startup by a {@link DatabaseProfile}.
  */
 public class PersistenceManager {
+    private static Logger LOGGER = LoggerFactory.getLogger(PersistenceManager.class);
+
     private static PersistenceManager instance = null;
 
+    private final DatabaseProfile profile;
     private EntityManagerFactory entityManagerFactory;
 
     protected PersistenceManager() {
-        entityManagerFactory = Persistence.createEntityManagerFactory("proj.concert");
+        profile = DatabaseProfile.fromSystemProperties();
+        LOGGER.info("PersistenceManager(): Using the " + profile + " database profile");
+        entityManagerFactory = Persistence.createEntityManagerFactory("proj.concert", profile.getProperties());
     }
 
     public EntityManager createEntityManager() {
         return entityManagerFactory.createEntityManager();
     }
 
+    /**
+     * Returns Hibernate's statistics for the current database. They start again from zero whenever the database is
+     * reset.
+     */
+    public Statistics getStatistics() {
+        return entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    /**
+     * Returns the caches behind the second-level cache's regions, or an empty list if the second-level cache is
+     * provided by something else.
+     */
+    public List<ExpiringCache<?, ?>> getCacheRegions() {
+        RegionFactory regionFactory = entityManagerFactory.unwrap(SessionFactoryImplementor.class).getCache().getRegionFactory();
+        if (regionFactory instanceof InProcessRegionFactory) {
+            return ((InProcessRegionFactory) regionFactory).getCaches();
+        }
+        return Collections.emptyList();
+    }
+
+    /**
+     * Returns the pool that database connections come from, or null if connections are provided by something else.
+     */
+    public BoundedConnectionProvider getConnectionPool() {
+        ConnectionProvider connectionProvider = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry().getService(ConnectionProvider.class);
+        if (connectionProvider instanceof BoundedConnectionProvider) {
+            return (BoundedConnectionProvider) connectionProvider;
+        }
+        return null;
+    }
+
     public static PersistenceManager instance() {
         if (instance == null) {
             instance = new PersistenceManager();
@@ -39,7 +90,7 @@ public class PersistenceManager {
     // FOR TESTING ONLY! Will wipe the database.
     public void reset() {
         entityManagerFactory.close();
-        entityManagerFactory = Persistence.createEntityManagerFactory("proj.concert");
+        entityManagerFactory = Persistence.createEntityManagerFactory("proj.concert", profile.getProperties());
     }
 
 }
@@ -0,0 +1,250 @@
+package proj.concert.service.services;
+
+import org.hibernate.jpa.QueryHints;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import proj.concert.service.util.ConcertUtils;
+import proj.concert.service.util.PerformanceKey;
+import proj.concert.service.util.SeatAvailability;
+import proj.concert.service.util.SeatCounters;
+import proj.concert.service.util.SingleFlight;
+import proj.concert.service.util.TheatreLayout;
+
+import javax.persistence.EntityManager;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Singleton class that keeps an in-memory {@link SeatAvailability} bitmap for every performance. Bookings reserve
+ * their seats here before anything is written to the database, so the Seat table only needs to be touched for the
+ * final durable write. Seat listings are answered straight from the bitmap.
+ * <p>
+ * A performance's bitmap is built from the Seat table the first time it is needed, and is then kept up to date by
+ * the web service. Performances with no seats in the database have no bitmap - unless seats are created lazily (see
+ * {@link ConcertUtils#isLazySeeding()}), in which case a scheduled performance's seats are created, all unbooked, when
+ * its bitmap is first built. Bitmaps are only ever built once at a time for a performance, so its seats are only ever
+ * created once. Each bitmap also carries the
+ * performance's {@link SeatCounters}, which are rebuilt from the database on startup.
+ * <p>
+ * Requests for a performance that isn't loaded yet tend to arrive together, when a popular concert opens. Concurrent
+ * lookups and loads of the same performance share a single {@link SingleFlight} load rather than each querying the
+ * database.
+ */
+public class SeatAvailabilityManager {
+
+    private static Logger LOGGER = LoggerFactory.getLogger(SeatAvailabilityManager.class);
+    private static SeatAvailabilityManager instance = null;
+
+    private final ConcurrentMap<PerformanceKey, SeatAvailability> performances = new ConcurrentHashMap<>();
+    private final ConcurrentMap<LocalDateTime, PerformanceKey> performancesByDate = new ConcurrentHashMap<>();
+    private final SingleFlight<PerformanceKey, SeatAvailability> availabilityLoads = new SingleFlight<>("seatAvailability");
+    private final SingleFlight<LocalDateTime, PerformanceKey> performanceLookups = new SingleFlight<>("performances");
+
+    protected SeatAvailabilityManager() {
+    }
+
+    public static synchronized SeatAvailabilityManager instance() {
+        if (instance == null) {
+            instance = new SeatAvailabilityManager();
+        }
+        return instance;
+    }
+
+    /**
+     * Returns the seat bitmap for the given performance, loading it from the database if necessary.
+     *
+     * @return the bitmap, or null if there are no seats for that performance
+     */
+    public SeatAvailability getAvailability(long concertId, LocalDateTime date) {
+        PerformanceKey key = new PerformanceKey(concertId, date);
+        SeatAvailability availability = performances.get(key);
+        if (availability == null) {
+            availability = availabilityLoads.load(key, () -> loadOnce(key));
+        }
+        if (availability != null) {
+            performancesByDate.putIfAbsent(date, key);
+        }
+        return availability;
+    }
+
+    /**
+     * Returns the seat bitmap for the performance on the given date, loading it from the database if necessary.
+     *
+     * @return the bitmap, or null if no concert is scheduled on that date
+     */
+    public SeatAvailability getAvailability(LocalDateTime date) {
+        PerformanceKey key = getPerformance(date);
+        return key == null ? null : getAvailability(key.getConcertId(), key.getDate());
+    }
+
+    /**
+     * Returns the performance scheduled on the given date.
+     *
+     * @return the performance, or null if no concert is scheduled on that date
+     */
+    public PerformanceKey getPerformance(LocalDateTime date) {
+        PerformanceKey key = performancesByDate.get(date);
+        return key != null ? key : performanceLookups.load(date, () -> findPerformance(date));
+    }
+
+    /**
+     * Returns the remaining-seat counters for the given performance, loading them from the database if necessary.
+     *
+     * @return the counters, or null if there are no seats for that performance
+     */
+    public SeatCounters getCounters(long concertId, LocalDateTime date) {
+        SeatAvailability availability = getAvailability(concertId, date);
+        return availability == null ? null : availability.getCounters();
+    }
+
+    /**
+     * Discards all in-memory state and rebuilds it for every performance that has seats in the database. Only two
+     * queries are needed, regardless of the number of performances.
+     */
+    public void rebuild() {
+        EntityManager em = PersistenceManager.instance().createEntityManager();
+        try {
+            em.getTransaction().begin();
+            List<Object[]> performanceRows = em
+                    .createQuery("select c.id, d from Concert c join c.dates d where d in (select distinct s.date from Seat s)", Object[].class)
+                    .getResultList();
+            List<Object[]> bookedSeats = em
+                    .createQuery("select s.date, s.label from Seat s where s.isBooked = true", Object[].class)
+                    .getResultList();
+            em.getTransaction().commit();
+
+            Map<LocalDateTime, SeatAvailability> byDate = new HashMap<>();
+            Map<PerformanceKey, SeatAvailability> rebuilt = new HashMap<>();
+            for (Object[] row : performanceRows) {
+                PerformanceKey key = new PerformanceKey((Long) row[0], (LocalDateTime) row[1]);
+                SeatAvailability availability = byDate.computeIfAbsent(key.getDate(),
+                        date -> new SeatAvailability(TheatreLayout.NUM_SEATS_IN_THEATRE));
+                rebuilt.put(key, availability);
+            }
+            for (Object[] seat : bookedSeats) {
+                SeatAvailability availability = byDate.get((LocalDateTime) seat[0]);
+                int index = TheatreLayout.indexOf((String) seat[1]);
+                if (availability != null && index >= 0 && availability.tryReserve(index)) {
+                    availability.getCounters().recordBooked(index);
+                }
+            }
+
+            clear();
+            performances.putAll(rebuilt);
+            for (PerformanceKey key : rebuilt.keySet()) {
+                performancesByDate.putIfAbsent(key.getDate(), key);
+            }
+
+            LOGGER.debug("rebuild(): Rebuilt seat availability for " + rebuilt.size() + " performances");
+        } finally {
+            em.close();
+        }
+    }
+
+    /**
+     * Returns the loads run for performances that weren't in memory yet, with how many of them were shared.
+     */
+    public List<SingleFlight<?, ?>> getLoads() {
+        return Arrays.asList(performanceLookups, availabilityLoads);
+    }
+
+    /**
+     * Discards all in-memory state. Called whenever the seat data in the database is re-created.
+     */
+    public void clear() {
+        performances.clear();
+        performancesByDate.clear();
+    }
+
+    private PerformanceKey findPerformance(LocalDateTime date) {
+        EntityManager em = PersistenceManager.instance().createEntityManager();
+        try {
+            em.getTransaction().begin();
+            List<Long> concertIds = em
+                    .createQuery("select c.id from Concert c join c.dates d where d = :date", Long.class)
+                    .setParameter("date", date)
+                    .setMaxResults(1)
+                    .setHint(QueryHints.HINT_CACHEABLE, true)
+                    .setHint(QueryHints.HINT_CACHE_REGION, "catalog.queries")
+                    .getResultList();
+            em.getTransaction().commit();
+
+            return concertIds.isEmpty() ? null : new PerformanceKey(concertIds.get(0), date);
+        } finally {
+            em.close();
+        }
+    }
+
+    /*
+    Helper function that loads a performance's bitmap and publishes it, unless a load that finished just before this
+    one already has. Only one load of a performance runs at a time, and the database is only touched (and the seats
+    created, when seeding lazily) outside of the map's own locking.
+     */
+    private SeatAvailability loadOnce(PerformanceKey key) {
+        SeatAvailability existing = performances.get(key);
+        if (existing != null) {
+            return existing;
+        }
+        SeatAvailability loaded = load(key);
+        if (loaded == null) {
+            return null;
+        }
+        existing = performances.putIfAbsent(key, loaded);
+        return existing != null ? existing : loaded;
+    }
+
+    private SeatAvailability load(PerformanceKey key) {
+        EntityManager em = PersistenceManager.instance().createEntityManager();
+        try {
+            // Only the booked seats are needed, so the database filters them out using the (date, isBooked) index,
+            // rather than every seat for the date being sent back. Whether the date has seats at all is a separate
+            // single-row lookup.
+            em.getTransaction().begin();
+            List<Long> anySeat = em
+                    .createQuery("select s.id from Seat s where s.date = :date", Long.class)
+                    .setParameter("date", key.getDate())
+                    .setMaxResults(1)
+                    .getResultList();
+            List<String> bookedLabels = anySeat.isEmpty() ? Collections.emptyList() : em
+                    .createQuery("select s.label from Seat s where s.date = :date and s.isBooked = true", String.class)
+                    .setParameter("date", key.getDate())
+                    .getResultList();
+            boolean scheduled = anySeat.isEmpty() && ConcertUtils.isLazySeeding() && em
+                    .createQuery("select c.id from Concert c join c.dates d where c.id = :id and d = :date", Long.class)
+                    .setParameter("id", key.getConcertId())
+                    .setParameter("date", key.getDate())
+                    .setMaxResults(1)
+                    .getResultList()
+                    .size() > 0;
+            em.getTransaction().commit();
+
+            if (anySeat.isEmpty()) {
+                if (!scheduled) {
+                    return null;
+                }
+                int seatCount = ConcertUtils.materializeSeats(key.getDate());
+                LOGGER.debug("load(): Created " + seatCount + " seats for " + key);
+            }
+
+            SeatAvailability availability = new SeatAvailability(TheatreLayout.NUM_SEATS_IN_THEATRE);
+            for (String label : bookedLabels) {
+                int index = TheatreLayout.indexOf(label);
+                if (index >= 0 && availability.tryReserve(index)) {
+                    availability.getCounters().recordBooked(index);
+                }
+            }
+
+            LOGGER.debug("load(): Loaded seat availability for " + key + ", " + availability.countTaken() + " seats taken");
+            return availability;
+        } finally {
+            em.close();
+        }
+    }
+}
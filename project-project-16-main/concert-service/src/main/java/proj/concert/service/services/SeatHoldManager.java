@@ -0,0 +1,143 @@
+package proj.concert.service.services;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import proj.concert.service.util.PerformanceKey;
+import proj.concert.service.util.SeatAvailability;
+import proj.concert.service.util.SeatHold;
+import proj.concert.service.util.TimerWheel;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Singleton class that manages temporary seat holds. A hold claims its seats in the performance's
+ * {@link SeatAvailability} bitmap, so they show as unavailable to everyone else until the hold is released, expires,
+ * or is turned into a booking.
+ * <p>
+ * Expiry is driven by a single {@link TimerWheel}, rather than a thread or scheduled task per hold.
+ */
+public class SeatHoldManager {
+
+    private static Logger LOGGER = LoggerFactory.getLogger(SeatHoldManager.class);
+    private static SeatHoldManager instance = null;
+
+    public static final long DEFAULT_TTL_SECONDS = 120;
+    public static final long MAX_TTL_SECONDS = 900;
+
+    private final ConcurrentMap<String, SeatHold> holds = new ConcurrentHashMap<>();
+    private final TimerWheel wheel = new TimerWheel(250, 1024, "seat-hold-expiry");
+
+    protected SeatHoldManager() {
+    }
+
+    public static synchronized SeatHoldManager instance() {
+        if (instance == null) {
+            instance = new SeatHoldManager();
+        }
+        return instance;
+    }
+
+    /**
+     * Places a hold on the given seats for the given number of seconds.
+     *
+     * @return the new hold, or null if any of the seats is already booked or held
+     */
+    public SeatHold hold(String owner, PerformanceKey performance, SeatAvailability availability, int[] seatIndices,
+                         List<String> seatLabels, long ttlSeconds) {
+        if (!availability.tryReserveAll(seatIndices)) {
+            return null;
+        }
+        availability.getCounters().recordHeld(seatIndices);
+
+        SeatHold hold = new SeatHold(UUID.randomUUID().toString(), owner, performance, availability, seatIndices, seatLabels);
+        hold.setExpiry(wheel.schedule(() -> expire(hold), clampTtl(ttlSeconds) * 1000));
+        holds.put(hold.getId(), hold);
+        return hold;
+    }
+
+    /**
+     * Returns the active hold with the given id, or null if there is none.
+     */
+    public SeatHold get(String holdId) {
+        return holds.get(holdId);
+    }
+
+    /**
+     * Pushes back the expiry of the given hold so that it lasts for the given number of seconds from now.
+     *
+     * @return false if the hold has already ended
+     */
+    public boolean extend(SeatHold hold, long ttlSeconds) {
+        synchronized (hold) {
+            if (!hold.getExpiry().cancel()) {
+                return false;
+            }
+            hold.setExpiry(wheel.schedule(() -> expire(hold), clampTtl(ttlSeconds) * 1000));
+            return true;
+        }
+    }
+
+    /**
+     * Ends the given hold and makes its seats available again.
+     *
+     * @return false if the hold had already ended
+     */
+    public boolean release(SeatHold hold) {
+        if (!end(hold)) {
+            return false;
+        }
+        hold.getAvailability().releaseAll(hold.getSeatIndices());
+        hold.getAvailability().getCounters().recordHoldReleased(hold.getSeatIndices());
+        return true;
+    }
+
+    /**
+     * Ends the given hold without releasing its seats, handing them over to the caller - typically to be booked. If
+     * the booking fails, the caller is responsible for releasing the seats.
+     *
+     * @return false if the hold had already ended, in which case the caller does not own the seats
+     */
+    public boolean claim(SeatHold hold) {
+        return end(hold);
+    }
+
+    /**
+     * Discards every hold without touching the seats they refer to. Called whenever the seat data in the database is
+     * re-created.
+     */
+    public void clear() {
+        for (SeatHold hold : holds.values()) {
+            end(hold);
+        }
+    }
+
+    private void expire(SeatHold hold) {
+        if (holds.remove(hold.getId(), hold)) {
+            hold.getAvailability().releaseAll(hold.getSeatIndices());
+            hold.getAvailability().getCounters().recordHoldReleased(hold.getSeatIndices());
+            LOGGER.debug("expire(): Hold " + hold.getId() + " on " + hold.getSeatLabels() + " for "
+                    + hold.getPerformance() + " expired");
+        }
+    }
+
+    private boolean end(SeatHold hold) {
+        synchronized (hold) {
+            if (!holds.remove(hold.getId(), hold)) {
+                return false;
+            }
+            hold.getExpiry().cancel();
+            return true;
+        }
+    }
+
+    private static long clampTtl(long ttlSeconds) {
+        if (ttlSeconds <= 0) {
+            return DEFAULT_TTL_SECONDS;
+        }
+        return Math.min(ttlSeconds, MAX_TTL_SECONDS);
+    }
+}
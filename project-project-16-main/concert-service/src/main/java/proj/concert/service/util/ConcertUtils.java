@@ -1,30 +1,65 @@
 package proj.concert.service.util;
 
+import org.hibernate.Session;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.id.IdentifierGenerator;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+import org.hibernate.persister.entity.EntityPersister;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import proj.concert.service.domain.Concert;
 import proj.concert.service.domain.Seat;
+import proj.concert.service.services.CatalogCache;
 import proj.concert.service.services.ConcertApplication;
+import proj.concert.service.services.IdempotencyCache;
 import proj.concert.service.services.PersistenceManager;
+import proj.concert.service.services.SeatAvailabilityManager;
+import proj.concert.service.services.SeatHoldManager;
 
 import javax.persistence.EntityManager;
+import javax.persistence.PersistenceException;
 import javax.persistence.TypedQuery;
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 public class ConcertUtils {
 
     private static Logger LOGGER = LoggerFactory.getLogger(ConcertUtils.class);
 
+    // "batch" inserts each date's seats with JDBC batches, several dates at a time; "persist" persists them one by one;
+    // "lazy" creates no seats up front, leaving each performance's seats to be created when it is first needed.
+    private static final String SEED_MODE = System.getProperty("concert.seed.mode", "batch");
+    private static final int SEED_THREADS = Integer.getInteger("concert.seed.threads", Runtime.getRuntime().availableProcessors());
+    private static final int SEED_BATCH_SIZE = Integer.getInteger("concert.seed.batchSize", 50);
+
+    private static final String INSERT_SEAT =
+            "insert into Seat (id, version, isBooked, date, label, price, bookingStatus) values (?, ?, ?, ?, ?, ?, ?)";
+
     /**
      * This method will clear all seat and booking data from the database. Then, it will create all Seat objects for
-     * all concerts and dates.
+     * all concerts and dates. How long this takes is logged, as it holds up startup and every test reset.
      */
     public static void initConcerts() {
         LOGGER.debug("initConcerts(): Creating the Application");
+        long start = System.nanoTime();
+
+        // Any in-memory seat availability, holds, remembered responses or cached catalog entries refer to the data we're
+        // about to replace.
+        SeatHoldManager.instance().clear();
+        SeatAvailabilityManager.instance().clear();
+        IdempotencyCache.instance().clear();
+        CatalogCache.instance().clear();
 
         EntityManager em = PersistenceManager.instance().createEntityManager();
         try {
@@ -40,28 +75,163 @@ public class ConcertUtils {
                 Set<LocalDateTime> dates = c.getDates();
                 allDates.addAll(dates);
             }
+            skipPreloadedIds(em);
             em.getTransaction().commit();
 
             LOGGER.debug("initConcerts(): There are " + allDates.size() + " concert dates");
 
             // For each concert date, create the seats for that date and persist them.
-            int seatCount = 0;
-            for (LocalDateTime date : allDates) {
+            long seedStart = System.nanoTime();
+            int seatCount;
+            if (isLazySeeding()) {
+                seatCount = 0;
+            } else if ("persist".equals(SEED_MODE)) {
+                seatCount = persistSeats(em, allDates);
+            } else {
+                seatCount = insertSeats(allDates);
+            }
+            long seedMillis = (System.nanoTime() - seedStart) / 1_000_000;
 
-                em.getTransaction().begin();
-                Set<Seat> seatsForDate = TheatreLayout.createSeatsFor(date);
-                for (Seat s : seatsForDate) {
-                    em.persist(s);
-                    seatCount++;
-                }
-                em.getTransaction().commit();
+            LOGGER.debug("initConcerts(): Created " + seatCount + " seats!");
 
-                // Ensures we aren't braking the EM with thousands of seat entities.
-                em.clear();
+            SeatAvailabilityManager.instance().rebuild();
+
+            LOGGER.info("initConcerts(): Seeded " + seatCount + " seats for " + allDates.size() + " dates in "
+                    + seedMillis + " ms (" + SEED_MODE + "), initialised in " + (System.nanoTime() - start) / 1_000_000 + " ms");
+        } finally {
+            em.close();
+        }
+    }
+
+    /**
+     * Returns true if seats are only created for a performance when it is first needed, rather than at startup.
+     */
+    public static boolean isLazySeeding() {
+        return "lazy".equals(SEED_MODE);
+    }
+
+    /**
+     * Creates the seats for a single date, in one transaction. Callers must make sure the date doesn't have seats
+     * already - if it does, the unique (label, date) index makes this fail rather than create a second set.
+     *
+     * @return the number of seats created
+     */
+    public static int materializeSeats(LocalDateTime date) {
+        return insertSeatsFor(date);
+    }
+
+    /*
+    Helper function that moves each entity's ID sequence past the rows loaded from db-init.sql, which are inserted with
+    fixed IDs. Sequences hand out blocks that end at the value they return, so the first block after the restart starts
+    just after the highest fixed ID.
+     */
+    private static void skipPreloadedIds(EntityManager em) {
+        SessionFactoryImplementor sessionFactory = em.getEntityManagerFactory().unwrap(SessionFactoryImplementor.class);
+        for (EntityPersister persister : sessionFactory.getMetamodel().entityPersisters().values()) {
+            if (!(persister.getIdentifierGenerator() instanceof SequenceStyleGenerator)) {
+                continue;
+            }
+            Number maxId = (Number) em.createQuery("select max(e." + persister.getIdentifierPropertyName() + ") from "
+                    + persister.getEntityName() + " e").getSingleResult();
+            if (maxId != null) {
+                SequenceStyleGenerator generator = (SequenceStyleGenerator) persister.getIdentifierGenerator();
+                em.createNativeQuery("alter sequence " + generator.getDatabaseStructure().getName() + " restart with "
+                        + (maxId.longValue() + generator.getDatabaseStructure().getIncrementSize())).executeUpdate();
             }
+        }
+    }
 
-            LOGGER.debug("initConcerts(): Created " + seatCount + " seats!");
+    /*
+    Helper function that persists every seat through the entity manager, one date per transaction.
+     */
+    private static int persistSeats(EntityManager em, Set<LocalDateTime> dates) {
+        int seatCount = 0;
+        for (LocalDateTime date : dates) {
+
+            em.getTransaction().begin();
+            Set<Seat> seatsForDate = TheatreLayout.createSeatsFor(date);
+            for (Seat s : seatsForDate) {
+                em.persist(s);
+                seatCount++;
+            }
+            em.getTransaction().commit();
+
+            // Ensures we aren't braking the EM with thousands of seat entities.
+            em.clear();
+        }
+        return seatCount;
+    }
+
+    /*
+    Helper function that inserts every seat with JDBC batches, seeding several dates at once on worker threads. Each
+    date is still written in its own transaction.
+     */
+    private static int insertSeats(Set<LocalDateTime> dates) {
+        if (dates.isEmpty()) {
+            return 0;
+        }
+        ExecutorService workers = Executors.newFixedThreadPool(Math.max(1, Math.min(SEED_THREADS, dates.size())));
+        try {
+            List<Future<Integer>> results = new ArrayList<>();
+            for (LocalDateTime date : dates) {
+                results.add(workers.submit(() -> insertSeatsFor(date)));
+            }
+
+            int seatCount = 0;
+            for (Future<Integer> result : results) {
+                seatCount += result.get();
+            }
+            return seatCount;
+        } catch (ExecutionException e) {
+            throw new PersistenceException("Couldn't create seats", e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new PersistenceException("Interrupted while creating seats", e);
         } finally {
+            workers.shutdownNow();
+        }
+    }
+
+    /*
+    Helper function that inserts the seats for one date in a single transaction. IDs come from Seat's own generator,
+    which reserves them a block at a time, so they never clash with seats Hibernate inserts.
+     */
+    private static int insertSeatsFor(LocalDateTime date) {
+        Set<Seat> seats = TheatreLayout.createSeatsFor(date);
+        EntityManager em = PersistenceManager.instance().createEntityManager();
+        try {
+            SharedSessionContractImplementor session = em.unwrap(SharedSessionContractImplementor.class);
+            IdentifierGenerator ids = session.getFactory().getMetamodel().entityPersister(Seat.class).getIdentifierGenerator();
+
+            em.getTransaction().begin();
+            em.unwrap(Session.class).doWork(connection -> {
+                try (PreparedStatement insert = connection.prepareStatement(INSERT_SEAT)) {
+                    int pending = 0;
+                    for (Seat seat : seats) {
+                        insert.setLong(1, ((Number) ids.generate(session, seat)).longValue());
+                        insert.setLong(2, 0);
+                        insert.setBoolean(3, seat.isBooked());
+                        insert.setTimestamp(4, Timestamp.valueOf(seat.getDate()));
+                        insert.setString(5, seat.getLabel());
+                        insert.setBigDecimal(6, seat.getPrice());
+                        insert.setInt(7, seat.getBookingStatus().ordinal());
+                        insert.addBatch();
+                        if (++pending == SEED_BATCH_SIZE) {
+                            insert.executeBatch();
+                            pending = 0;
+                        }
+                    }
+                    if (pending > 0) {
+                        insert.executeBatch();
+                    }
+                }
+            });
+            em.getTransaction().commit();
+            return seats.size();
+        } finally {
+            if (em.getTransaction().isActive()) {
+                em.getTransaction().rollback();
+            }
             em.close();
         }
     }
@@ -0,0 +1,99 @@
+package proj.concert.service.util;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * The ways the embedded H2 database can store its data. The profile is chosen at startup with the concert.db.profile
+ * system property:
+ * <ul>
+ *     <li>memory: nothing is written to disk, so nothing survives a restart. For tests and demos.</li>
+ *     <li>mvstore: a file using H2's MVStore engine, tuned with the settings below. For production, and the default.</li>
+ *     <li>pagestore: a file using H2's older PageStore engine, as the service always used to.</li>
+ * </ul>
+ * The file profiles write to concert.db.path, which defaults to ~/concert for mvstore and ~/test for pagestore. The
+ * mvstore profile is tuned with:
+ * <ul>
+ *     <li>concert.db.cacheSizeKb: how much of the database is cached in memory (default 65536, i.e. 64 MB)</li>
+ *     <li>concert.db.lockMode: H2's LOCK_MODE, where 3 (the default) locks rows and reads committed data</li>
+ *     <li>concert.db.writeDelayMillis: how long committed changes may wait before being written (default 500)</li>
+ * </ul>
+ */
+public enum DatabaseProfile {
+
+    MEMORY("concert", false) {
+        @Override
+        public String getUrl(String name) {
+            // Without DB_CLOSE_DELAY the database would be thrown away whenever its last connection closed.
+            return "jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1";
+        }
+    },
+    MVSTORE("~/concert", true) {
+        @Override
+        public String getUrl(String name) {
+            return "jdbc:h2:" + name + ";MV_STORE=TRUE"
+                    + ";CACHE_SIZE=" + Integer.getInteger("concert.db.cacheSizeKb", 65536)
+                    + ";LOCK_MODE=" + Integer.getInteger("concert.db.lockMode", 3)
+                    + ";WRITE_DELAY=" + Integer.getInteger("concert.db.writeDelayMillis", 500);
+        }
+    },
+    PAGESTORE("~/test", true) {
+        @Override
+        public String getUrl(String name) {
+            return "jdbc:h2:" + name + ";mv_store=false";
+        }
+    };
+
+    private static final String URL_PROPERTY = "javax.persistence.jdbc.url";
+
+    private final String defaultName;
+    private final boolean onDisk;
+
+    /**
+     * @param defaultName the name of the database the service uses in this profile
+     * @param onDisk      whether the database is a file, whose path can be changed with concert.db.path
+     */
+    DatabaseProfile(String defaultName, boolean onDisk) {
+        this.defaultName = defaultName;
+        this.onDisk = onDisk;
+    }
+
+    /**
+     * Returns the JDBC URL of the database with the given name. For the file profiles, the name is the path of the
+     * database file, without its extension.
+     */
+    public abstract String getUrl(String name);
+
+    /**
+     * Returns the persistence unit properties that point it at this profile's database, as configured by the system
+     * properties.
+     */
+    public Map<String, Object> getProperties() {
+        Map<String, Object> properties = new HashMap<>();
+        properties.put(URL_PROPERTY, getUrl(getDefaultName()));
+        return properties;
+    }
+
+    /**
+     * Returns the profile chosen by the concert.db.profile system property.
+     *
+     * @throws IllegalArgumentException if the property names no profile
+     */
+    public static DatabaseProfile fromSystemProperties() {
+        String profile = System.getProperty("concert.db.profile", "mvstore");
+        try {
+            return valueOf(profile.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown database profile \"" + profile
+                    + "\", expected one of memory, mvstore or pagestore", e);
+        }
+    }
+
+    /*
+    Helper function that returns the name of the database the service uses in this profile.
+     */
+    private String getDefaultName() {
+        return onDisk ? System.getProperty("concert.db.path", defaultName) : defaultName;
+    }
+}
@@ -0,0 +1,174 @@
+package proj.concert.service.util;
+
+import java.util.AbstractMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * A small in-process cache, bounded both in size and in how long an entry may live. When full, the least recently used
+ * entry is evicted. Hits, misses and evictions are counted, so that the cache can be sized from real traffic.
+ * <p>
+ * Values are loaded through {@link #get(Object, Function)}. A load that overlaps an invalidation is not cached, so a
+ * reader can never put back a value that a writer has just invalidated. Readers that miss on the same key at the same
+ * time share a single load, as long as nothing has been invalidated since it started. Callers that manage their own consistency, such
+ * as Hibernate's cache regions, can use {@link #peek(Object)} and {@link #put(Object, Object)} instead.
+ * <p>
+ * A time to live of zero or less means entries never expire.
+ *
+ * @param <K> the key type
+ * @param <V> the value type. Null values are never cached
+ */
+public class ExpiringCache<K, V> {
+
+    private final String name;
+    private final int maxEntries;
+    private final long ttlMillis;
+    private final LinkedHashMap<K, Entry<V>> entries;
+    private final SingleFlight<Map.Entry<K, Long>, V> loads;
+
+    // Bumped by every invalidation, so that in-progress loads can tell their result may be stale.
+    private long generation;
+
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    public ExpiringCache(String name, int maxEntries, long ttlMillis) {
+        this.name = name;
+        this.maxEntries = maxEntries;
+        this.ttlMillis = ttlMillis;
+        this.loads = new SingleFlight<>(name);
+        this.entries = new LinkedHashMap<K, Entry<V>>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, Entry<V>> eldest) {
+                if (size() > ExpiringCache.this.maxEntries) {
+                    evictions++;
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Returns the value for the given key, loading it with the given function if it isn't cached or has expired.
+     *
+     * @return the value, or null if the loader returned null
+     */
+    public V get(K key, Function<K, V> loader) {
+        long loadGeneration;
+        synchronized (this) {
+            Entry<V> entry = entries.get(key);
+            if (entry != null && entry.expiresAt > System.currentTimeMillis()) {
+                hits++;
+                return entry.value;
+            }
+            if (entry != null) {
+                entries.remove(key);
+                evictions++;
+            }
+            misses++;
+            loadGeneration = generation;
+        }
+
+        // Load outside the lock, so a slow load doesn't hold up readers of other keys. Only loads started since the
+        // last invalidation are shared, so a reader never gets a value from before a write it has already seen.
+        V value = loads.load(new AbstractMap.SimpleImmutableEntry<>(key, loadGeneration), () -> loader.apply(key));
+
+        synchronized (this) {
+            if (value != null && generation == loadGeneration) {
+                entries.put(key, new Entry<>(value, expiryTime()));
+            }
+        }
+        return value;
+    }
+
+    /**
+     * Returns the value for the given key, or null if it isn't cached or has expired. Counts as a hit or a miss.
+     */
+    public synchronized V peek(K key) {
+        Entry<V> entry = entries.get(key);
+        if (entry != null && entry.expiresAt > System.currentTimeMillis()) {
+            hits++;
+            return entry.value;
+        }
+        if (entry != null) {
+            entries.remove(key);
+            evictions++;
+        }
+        misses++;
+        return null;
+    }
+
+    /**
+     * Returns true if the given key has a value that hasn't expired. Doesn't count as a hit or a miss.
+     */
+    public synchronized boolean contains(K key) {
+        Entry<V> entry = entries.get(key);
+        return entry != null && entry.expiresAt > System.currentTimeMillis();
+    }
+
+    public synchronized void put(K key, V value) {
+        entries.put(key, new Entry<>(value, expiryTime()));
+    }
+
+    public synchronized void invalidate(K key) {
+        generation++;
+        entries.remove(key);
+    }
+
+    public synchronized void invalidateAll() {
+        generation++;
+        entries.clear();
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getMaxEntries() {
+        return maxEntries;
+    }
+
+    public long getTtlMillis() {
+        return ttlMillis;
+    }
+
+    /**
+     * Returns the loads run on behalf of this cache's misses, with how many of them were shared.
+     */
+    public SingleFlight<?, ?> getLoads() {
+        return loads;
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+
+    private long expiryTime() {
+        return ttlMillis > 0 ? System.currentTimeMillis() + ttlMillis : Long.MAX_VALUE;
+    }
+
+    private static class Entry<V> {
+        private final V value;
+        private final long expiresAt;
+
+        private Entry(V value, long expiresAt) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package proj.concert.service.util;
+
+import org.apache.commons.lang3.builder.EqualsBuilder;
+import org.apache.commons.lang3.builder.HashCodeBuilder;
+
+import java.time.LocalDateTime;
+
+/**
+ * Identifies a single performance, i.e. a concert on a particular date. Used as a map key by the in-memory booking
+ * structures, which all hold state per performance.
+ */
+public class PerformanceKey {
+
+    private final long concertId;
+    private final LocalDateTime date;
+
+    public PerformanceKey(long concertId, LocalDateTime date) {
+        this.concertId = concertId;
+        this.date = date;
+    }
+
+    public long getConcertId() {
+        return concertId;
+    }
+
+    public LocalDateTime getDate() {
+        return date;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+
+        if (o == null || getClass() != o.getClass()) return false;
+
+        PerformanceKey other = (PerformanceKey) o;
+
+        return new EqualsBuilder()
+                .append(concertId, other.concertId)
+                .append(date, other.date)
+                .isEquals();
+    }
+
+    @Override
+    public int hashCode() {
+        return new HashCodeBuilder(17, 37)
+                .append(concertId)
+                .append(date)
+                .toHashCode();
+    }
+
+    @Override
+    public String toString() {
+        return "PerformanceKey{" +
+                "concertId='" + concertId + '\'' +
+                ", date='" + date + '\'' +
+                '}';
+    }
+}
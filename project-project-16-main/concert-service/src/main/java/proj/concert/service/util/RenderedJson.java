@@ -0,0 +1,43 @@
+package proj.concert.service.util;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import javax.ws.rs.core.EntityTag;
+import java.io.UncheckedIOException;
+
+/**
+ * A response body that has already been serialized to JSON, along with the entity tag that identifies it. Caching
+ * the bytes rather than the DTOs means a cached response doesn't have to go through Jackson again each time it is sent.
+ */
+public class RenderedJson {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final byte[] body;
+    private final EntityTag tag;
+
+    private RenderedJson(byte[] body, EntityTag tag) {
+        this.body = body;
+        this.tag = tag;
+    }
+
+    /**
+     * Serializes the given value, which must be annotated in the same way as any other DTO sent by the service.
+     */
+    public static RenderedJson render(Object value, EntityTag tag) {
+        try {
+            return new RenderedJson(MAPPER.writeValueAsBytes(value), tag);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public byte[] getBody() {
+        return body;
+    }
+
+    public EntityTag getTag() {
+        return tag;
+    }
+}
@@ -0,0 +1,107 @@
+package proj.concert.service.util;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.Lock;
+import java.util.function.Supplier;
+
+/**
+ * A bounded retry policy with jittered exponential backoff. An action is retried whenever it fails with the given
+ * exception type (or an exception caused by one), up to a fixed number of attempts. Between attempts the caller
+ * sleeps for a random time between zero and an exponentially growing cap, so that competing callers spread out
+ * rather than colliding again in lockstep.
+ * <p>
+ * Policies can be configured through system properties named after a common prefix, e.g. for the prefix
+ * "concert.booking.retry": concert.booking.retry.maxAttempts, concert.booking.retry.baseDelayMillis and
+ * concert.booking.retry.maxDelayMillis.
+ */
+public class RetryPolicy {
+
+    private final int maxAttempts;
+    private final long baseDelayMillis;
+    private final long maxDelayMillis;
+    private final Class<? extends Throwable> retryOn;
+
+    public RetryPolicy(int maxAttempts, long baseDelayMillis, long maxDelayMillis, Class<? extends Throwable> retryOn) {
+        if (maxAttempts < 1) {
+            throw new IllegalArgumentException("maxAttempts must be at least 1");
+        }
+        this.maxAttempts = maxAttempts;
+        this.baseDelayMillis = baseDelayMillis;
+        this.maxDelayMillis = maxDelayMillis;
+        this.retryOn = retryOn;
+    }
+
+    /**
+     * Creates a policy whose settings can be overridden by system properties starting with the given prefix.
+     */
+    public static RetryPolicy fromSystemProperties(String prefix, int maxAttempts, long baseDelayMillis,
+                                                   long maxDelayMillis, Class<? extends Throwable> retryOn) {
+        return new RetryPolicy(
+                Integer.getInteger(prefix + ".maxAttempts", maxAttempts),
+                Long.getLong(prefix + ".baseDelayMillis", baseDelayMillis),
+                Long.getLong(prefix + ".maxDelayMillis", maxDelayMillis),
+                retryOn
+        );
+    }
+
+    public int getMaxAttempts() {
+        return maxAttempts;
+    }
+
+    /**
+     * Runs the given action, retrying it on retryable failures. If every attempt fails, the last failure is thrown.
+     */
+    public <T> T call(Supplier<T> action) {
+        return call(action, null);
+    }
+
+    /**
+     * Runs the given action, retrying it on retryable failures, while the caller holds the given lock. The lock is
+     * released while backing off between attempts, so that others aren't held up by the wait, and taken again before
+     * the next attempt. If every attempt fails, the last failure is thrown, with the lock held.
+     */
+    public <T> T call(Supplier<T> action, Lock heldLock) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return action.get();
+            } catch (RuntimeException e) {
+                if (attempt >= maxAttempts || !isRetryable(e)) {
+                    throw e;
+                }
+                if (heldLock != null) {
+                    heldLock.unlock();
+                }
+                try {
+                    Thread.sleep(backoffMillis(attempt));
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    throw e;
+                } finally {
+                    if (heldLock != null) {
+                        heldLock.lock();
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns a random delay between zero and min(maxDelayMillis, baseDelayMillis * 2^(attempt - 1)).
+     */
+    long backoffMillis(int attempt) {
+        long cap = baseDelayMillis << Math.min(attempt - 1, 30);
+        if (cap <= 0 || cap > maxDelayMillis) {
+            cap = maxDelayMillis;
+        }
+        return cap <= 0 ? 0 : ThreadLocalRandom.current().nextLong(cap + 1);
+    }
+
+    private boolean isRetryable(Throwable e) {
+        for (Throwable t = e; t != null; t = t.getCause()) {
+            if (retryOn.isInstance(t)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
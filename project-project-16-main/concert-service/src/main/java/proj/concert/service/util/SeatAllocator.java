@@ -0,0 +1,214 @@
+package proj.concert.service.util;
+
+import java.util.Arrays;
+
+/**
+ * Utility class that picks the best available block of adjacent seats within a price band, so that clients don't
+ * have to choose exact seat labels and then collide with each other over the same ones.
+ * <p>
+ * The best block is the one in the frontmost row of the band that has room, placed as close to the centre of that
+ * row as possible. Each row is examined as a single bit mask taken from the performance's {@link SeatAvailability},
+ * so a search costs a handful of word operations per row rather than a visit to every seat.
+ */
+public class SeatAllocator {
+
+    // How many times to search again if the chosen seats are claimed by someone else before we can claim them.
+    private static final int MAX_ATTEMPTS = 3;
+
+    private static final long ROW_MASK = (1L << TheatreLayout.NUM_SEATS_PER_ROW) - 1;
+
+    /**
+     * Finds and claims the best available block of adjacent seats in the given price band.
+     *
+     * @param availability   the performance's seat bitmap
+     * @param priceBandIndex the price band index, as returned by {@link TheatreLayout#priceBandIndexOf(String)}
+     * @param numSeats       the number of adjacent seats wanted
+     * @return the indices of the claimed seats, or null if no row in the band has that many adjacent free seats
+     */
+    public static int[] reserveBestAvailable(SeatAvailability availability, int priceBandIndex, int numSeats) {
+        if (numSeats < 1 || numSeats > TheatreLayout.NUM_SEATS_PER_ROW) {
+            return null;
+        }
+
+        for (int attempt = 0; attempt < MAX_ATTEMPTS; attempt++) {
+            int[] seatIndices = findBestAvailable(availability, priceBandIndex, numSeats);
+            if (seatIndices == null) {
+                return null;
+            }
+            if (availability.tryReserveAll(seatIndices)) {
+                return seatIndices;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Finds the best available block of adjacent seats in the given price band, without claiming them.
+     *
+     * @return the indices of the seats, or null if no row in the band has that many adjacent free seats
+     */
+    public static int[] findBestAvailable(SeatAvailability availability, int priceBandIndex, int numSeats) {
+        int firstRow = TheatreLayout.firstRowOf(priceBandIndex);
+        int lastRow = firstRow + TheatreLayout.PRICE_BANDS[priceBandIndex].numRows;
+
+        for (int rowNum = firstRow; rowNum < lastRow; rowNum++) {
+            int rowStart = rowNum * TheatreLayout.NUM_SEATS_PER_ROW;
+            long free = ~availability.getRange(rowStart, TheatreLayout.NUM_SEATS_PER_ROW) & ROW_MASK;
+
+            int start = bestStart(free, numSeats);
+            if (start >= 0) {
+                int[] seatIndices = new int[numSeats];
+                for (int i = 0; i < numSeats; i++) {
+                    seatIndices[i] = rowStart + start + i;
+                }
+                return seatIndices;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Suggests seats to request instead of the given ones, some of which are taken. Nothing is claimed, so the
+     * suggestion is only a snapshot.
+     * <p>
+     * If the request was for a block of adjacent seats in one row, the nearest free block of the same size in the same
+     * price band is suggested. Otherwise, or if there is no such block, seats which are still free are kept and each
+     * taken seat is replaced by the nearest free seat in its price band. Distance counts a row as two seats, and ties
+     * go to the seat in the nearer row.
+     *
+     * @param availability the performance's seat bitmap
+     * @param seatIndices  the requested seats
+     * @return the suggested seats, or null if the price band of some taken seat has no free seats left to offer
+     */
+    public static int[] suggestAlternatives(SeatAvailability availability, int[] seatIndices) {
+        if (isBlock(seatIndices)) {
+            int[] block = findNearestBlock(availability, Arrays.stream(seatIndices).min().getAsInt(), seatIndices.length);
+            if (block != null) {
+                return block;
+            }
+        }
+
+        int[] suggested = seatIndices.clone();
+
+        // Seats already in the suggestion, by row, so they aren't offered twice.
+        long[] chosen = new long[TheatreLayout.NUM_ROWS];
+        for (int index : seatIndices) {
+            if (!availability.isTaken(index)) {
+                chosen[index / TheatreLayout.NUM_SEATS_PER_ROW] |= 1L << (index % TheatreLayout.NUM_SEATS_PER_ROW);
+            }
+        }
+
+        for (int i = 0; i < suggested.length; i++) {
+            if (!availability.isTaken(suggested[i])) {
+                continue;
+            }
+
+            int replacement = findNearest(availability, suggested[i], 1, chosen);
+            if (replacement < 0) {
+                return null;
+            }
+            suggested[i] = replacement;
+            chosen[replacement / TheatreLayout.NUM_SEATS_PER_ROW] |= 1L << (replacement % TheatreLayout.NUM_SEATS_PER_ROW);
+        }
+        return suggested;
+    }
+
+    /*
+    Returns true if the given seats are all adjacent to each other, in the same row.
+     */
+    private static boolean isBlock(int[] seatIndices) {
+        if (seatIndices.length == 0) {
+            return false;
+        }
+        int[] sorted = seatIndices.clone();
+        Arrays.sort(sorted);
+        int first = sorted[0];
+        int last = sorted[sorted.length - 1];
+        return last - first == sorted.length - 1
+                && first / TheatreLayout.NUM_SEATS_PER_ROW == last / TheatreLayout.NUM_SEATS_PER_ROW;
+    }
+
+    /*
+    Finds the free block of numSeats adjacent seats nearest to the block starting at the given seat, within its price
+    band. Returns null if there is none.
+     */
+    private static int[] findNearestBlock(SeatAvailability availability, int start, int numSeats) {
+        int blockStart = findNearest(availability, start, numSeats, new long[TheatreLayout.NUM_ROWS]);
+        if (blockStart < 0) {
+            return null;
+        }
+        int[] block = new int[numSeats];
+        for (int i = 0; i < numSeats; i++) {
+            block[i] = blockStart + i;
+        }
+        return block;
+    }
+
+    /*
+    Finds the start of the free block of numSeats adjacent seats, skipping the given already-chosen seats, whose start
+    is nearest to the given seat within its price band. Returns -1 if there is none.
+     */
+    private static int findNearest(SeatAvailability availability, int index, int numSeats, long[] chosen) {
+        int priceBandIndex = TheatreLayout.priceBandIndexOf(index);
+        int firstRow = TheatreLayout.firstRowOf(priceBandIndex);
+        int lastRow = firstRow + TheatreLayout.PRICE_BANDS[priceBandIndex].numRows;
+        int targetRow = index / TheatreLayout.NUM_SEATS_PER_ROW;
+        int targetSeat = index % TheatreLayout.NUM_SEATS_PER_ROW;
+
+        int best = -1;
+        int bestDistance = Integer.MAX_VALUE;
+        int bestRowDistance = Integer.MAX_VALUE;
+        for (int rowNum = firstRow; rowNum < lastRow; rowNum++) {
+            int rowDistance = 2 * Math.abs(rowNum - targetRow);
+            if (rowDistance > bestDistance) {
+                continue;
+            }
+
+            int rowStart = rowNum * TheatreLayout.NUM_SEATS_PER_ROW;
+            long free = ~availability.getRange(rowStart, TheatreLayout.NUM_SEATS_PER_ROW) & ROW_MASK & ~chosen[rowNum];
+            long starts = runStarts(free, numSeats);
+            while (starts != 0) {
+                int seat = Long.numberOfTrailingZeros(starts);
+                int distance = rowDistance + Math.abs(seat - targetSeat);
+                if (distance < bestDistance || (distance == bestDistance && rowDistance < bestRowDistance)) {
+                    best = rowStart + seat;
+                    bestDistance = distance;
+                    bestRowDistance = rowDistance;
+                }
+                starts &= starts - 1;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Returns the position within a row of the most central block of numSeats adjacent free seats, or -1 if there is
+     * none. Bit i of the given mask is set when seat i of the row is free.
+     */
+    static int bestStart(long free, int numSeats) {
+        long starts = runStarts(free, numSeats);
+
+        int centre = (TheatreLayout.NUM_SEATS_PER_ROW - numSeats) / 2;
+        int best = -1;
+        while (starts != 0) {
+            int start = Long.numberOfTrailingZeros(starts);
+            if (best < 0 || Math.abs(start - centre) < Math.abs(best - centre)) {
+                best = start;
+            }
+            starts &= starts - 1;
+        }
+        return best;
+    }
+
+    /*
+    Given a mask of free seats in a row, returns a mask with a bit set wherever a run of numSeats free seats begins.
+    Shifting and ANDing the mask with itself numSeats - 1 times is enough to find them all.
+     */
+    private static long runStarts(long free, int numSeats) {
+        long starts = free;
+        for (int i = 1; i < numSeats && starts != 0; i++) {
+            starts &= free >>> i;
+        }
+        return starts;
+    }
+}
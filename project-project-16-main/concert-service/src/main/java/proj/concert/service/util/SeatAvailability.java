@@ -0,0 +1,162 @@
+package proj.concert.service.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free occupancy bitmap for the seats of a single performance. Bit i is set when the seat at index i (as given by
+ * {@link TheatreLayout#indexOf(String)}) is taken. Seats are claimed with compare-and-set, so two threads can never
+ * both succeed in reserving the same seat.
+ * <p>
+ * A seat is marked taken as soon as a booking claims it, before that booking commits. The performance's
+ * {@link SeatCounters} only change once a booking has committed.
+ * <p>
+ * Every change to the bitmap moves the performance's version on, so a reader that sees the same version twice knows
+ * nothing has changed in between. Versions are drawn from one clock shared by all performances, so a performance that
+ * is loaded again (e.g. after a reset) never repeats a version it had before.
+ */
+public class SeatAvailability {
+
+    private static final int BITS_PER_WORD = 64;
+    private static final AtomicLong CLOCK = new AtomicLong();
+
+    private final int numSeats;
+    private final AtomicLongArray words;
+    private final SeatCounters counters = new SeatCounters();
+    private final AtomicLong version = new AtomicLong(CLOCK.incrementAndGet());
+
+    public SeatAvailability(int numSeats) {
+        this.numSeats = numSeats;
+        this.words = new AtomicLongArray((numSeats + BITS_PER_WORD - 1) / BITS_PER_WORD);
+    }
+
+    public int getNumSeats() {
+        return numSeats;
+    }
+
+    public SeatCounters getCounters() {
+        return counters;
+    }
+
+    /**
+     * Returns the current version of the bitmap. The version is moved on after each change, so it must be read before
+     * the seats it describes - otherwise a change made in between could be missed under a newer version.
+     */
+    public long getVersion() {
+        return version.get();
+    }
+
+    public boolean isTaken(int index) {
+        return (words.get(index / BITS_PER_WORD) & mask(index)) != 0;
+    }
+
+    /**
+     * Returns the occupancy of a run of consecutive seats as a bit mask, with bit 0 standing for the seat at
+     * {@code from}. Used to look at a whole row of seats at once. The run may straddle two words, in which case the
+     * result is not an atomic snapshot, so callers must still claim seats with {@link #tryReserveAll(int[])}.
+     *
+     * @param from   the index of the first seat
+     * @param length the number of seats, at most 64
+     * @return the mask, with a bit set for every seat that is taken
+     */
+    public long getRange(int from, int length) {
+        int word = from / BITS_PER_WORD;
+        int offset = from % BITS_PER_WORD;
+        long bits = words.get(word) >>> offset;
+        if (offset + length > BITS_PER_WORD) {
+            bits |= words.get(word + 1) << (BITS_PER_WORD - offset);
+        }
+        return length == BITS_PER_WORD ? bits : bits & ((1L << length) - 1);
+    }
+
+    /**
+     * Returns the occupancy of every seat packed into bytes, with bit j of byte i set when the seat at index 8i + j is
+     * taken. As with {@link #getRange(int, int)}, the result is not an atomic snapshot of the whole performance.
+     */
+    public byte[] toByteArray() {
+        byte[] bytes = new byte[(numSeats + 7) / 8];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte) (words.get(i / 8) >>> (i % 8 * 8));
+        }
+        return bytes;
+    }
+
+    /**
+     * Attempts to claim a single seat.
+     *
+     * @return true if the seat was free and is now claimed by the caller, false if it was already taken
+     */
+    public boolean tryReserve(int index) {
+        int word = index / BITS_PER_WORD;
+        long mask = mask(index);
+        while (true) {
+            long current = words.get(word);
+            if ((current & mask) != 0) {
+                return false;
+            }
+            if (words.compareAndSet(word, current, current | mask)) {
+                bumpVersion();
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Attempts to claim all of the given seats. Either every seat is claimed, or - if any one of them is already
+     * taken - none are, and any seats claimed along the way are released again.
+     *
+     * @return true if all seats were claimed by the caller
+     */
+    public boolean tryReserveAll(int[] indices) {
+        for (int i = 0; i < indices.length; i++) {
+            if (!tryReserve(indices[i])) {
+                for (int j = 0; j < i; j++) {
+                    release(indices[j]);
+                }
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public void release(int index) {
+        int word = index / BITS_PER_WORD;
+        long mask = mask(index);
+        while (true) {
+            long current = words.get(word);
+            if ((current & mask) == 0) {
+                return;
+            }
+            if (words.compareAndSet(word, current, current & ~mask)) {
+                bumpVersion();
+                return;
+            }
+        }
+    }
+
+    public void releaseAll(int[] indices) {
+        for (int index : indices) {
+            release(index);
+        }
+    }
+
+    public int countTaken() {
+        int count = 0;
+        for (int i = 0; i < words.length(); i++) {
+            count += Long.bitCount(words.get(i));
+        }
+        return count;
+    }
+
+    /*
+    Helper function that moves the version on to a value no performance has had before. Two changes racing each other
+    may draw from the clock out of order, so the version only ever takes the larger value.
+     */
+    private void bumpVersion() {
+        version.accumulateAndGet(CLOCK.incrementAndGet(), Math::max);
+    }
+
+    private static long mask(int index) {
+        return 1L << (index % BITS_PER_WORD);
+    }
+}
@@ -0,0 +1,86 @@
+package proj.concert.service.util;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Running counts of the seats still available for a single performance, both overall and per price band. The counts
+ * are adjusted as bookings commit, so reading them never touches the database.
+ * <p>
+ * Seats that are temporarily held count as unavailable for as long as the hold lasts.
+ */
+public class SeatCounters {
+
+    private final AtomicInteger remaining;
+    private final AtomicIntegerArray remainingByPriceBand;
+    private final AtomicInteger held = new AtomicInteger();
+
+    /**
+     * Creates counters for a performance with every seat in the theatre available.
+     */
+    public SeatCounters() {
+        remaining = new AtomicInteger(TheatreLayout.NUM_SEATS_IN_THEATRE);
+        remainingByPriceBand = new AtomicIntegerArray(TheatreLayout.PRICE_BANDS.length);
+        for (int i = 0; i < TheatreLayout.PRICE_BANDS.length; i++) {
+            remainingByPriceBand.set(i, TheatreLayout.PRICE_BANDS[i].numRows * TheatreLayout.NUM_SEATS_PER_ROW);
+        }
+    }
+
+    public int getRemaining() {
+        return remaining.get();
+    }
+
+    /**
+     * @param priceBandIndex the position of the price band within {@link TheatreLayout#PRICE_BANDS}
+     */
+    public int getRemaining(int priceBandIndex) {
+        return remainingByPriceBand.get(priceBandIndex);
+    }
+
+    public int getHeld() {
+        return held.get();
+    }
+
+    /**
+     * Records that the seats at the given indices have been booked.
+     */
+    public void recordBooked(int... indices) {
+        for (int index : indices) {
+            remainingByPriceBand.decrementAndGet(TheatreLayout.priceBandIndexOf(index));
+        }
+        remaining.addAndGet(-indices.length);
+    }
+
+    /**
+     * Records that the seats at the given indices have become available again.
+     */
+    public void recordReleased(int... indices) {
+        for (int index : indices) {
+            remainingByPriceBand.incrementAndGet(TheatreLayout.priceBandIndexOf(index));
+        }
+        remaining.addAndGet(indices.length);
+    }
+
+    /**
+     * Records that the seats at the given indices are being held.
+     */
+    public void recordHeld(int... indices) {
+        recordBooked(indices);
+        held.addAndGet(indices.length);
+    }
+
+    /**
+     * Records that a hold on the seats at the given indices has ended without the seats being booked.
+     */
+    public void recordHoldReleased(int... indices) {
+        held.addAndGet(-indices.length);
+        recordReleased(indices);
+    }
+
+    /**
+     * Records that a hold on the seats at the given indices has been turned into a booking.
+     */
+    public void recordHoldBooked(int... indices) {
+        held.addAndGet(-indices.length);
+    }
+}
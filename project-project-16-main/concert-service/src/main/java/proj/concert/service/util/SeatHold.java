@@ -0,0 +1,67 @@
+package proj.concert.service.util;
+
+import java.util.List;
+
+/**
+ * A temporary hold on some seats for a single performance, placed by one user while they complete their booking. The
+ * held seats are claimed in the performance's {@link SeatAvailability} for as long as the hold lasts.
+ */
+public class SeatHold {
+
+    private final String id;
+    private final String owner;
+    private final PerformanceKey performance;
+    private final SeatAvailability availability;
+    private final int[] seatIndices;
+    private final List<String> seatLabels;
+    private volatile TimerWheel.Timeout expiry;
+
+    public SeatHold(String id, String owner, PerformanceKey performance, SeatAvailability availability,
+                    int[] seatIndices, List<String> seatLabels) {
+        this.id = id;
+        this.owner = owner;
+        this.performance = performance;
+        this.availability = availability;
+        this.seatIndices = seatIndices;
+        this.seatLabels = seatLabels;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    /**
+     * @return the auth token of the user who placed the hold
+     */
+    public String getOwner() {
+        return owner;
+    }
+
+    public PerformanceKey getPerformance() {
+        return performance;
+    }
+
+    public SeatAvailability getAvailability() {
+        return availability;
+    }
+
+    public int[] getSeatIndices() {
+        return seatIndices;
+    }
+
+    public List<String> getSeatLabels() {
+        return seatLabels;
+    }
+
+    public TimerWheel.Timeout getExpiry() {
+        return expiry;
+    }
+
+    public void setExpiry(TimerWheel.Timeout expiry) {
+        this.expiry = expiry;
+    }
+
+    public long getExpiresAt() {
+        return expiry.getDeadline();
+    }
+}
@@ -0,0 +1,99 @@
+package proj.concert.service.util;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Coalesces concurrent loads of the same key. The first caller to ask for a key runs the load; anyone else asking for
+ * that key while it is still running waits for it and shares its result, instead of running an identical load of their
+ * own. Once a load finishes, the next caller starts a new one, so results are never kept beyond the load itself.
+ * <p>
+ * A load that throws fails every caller waiting on it with the same exception. Loads and coalesced callers are counted,
+ * so the amount of work saved can be seen.
+ *
+ * @param <K> the key type
+ * @param <V> the value type
+ */
+public class SingleFlight<K, V> {
+
+    private final String name;
+    private final ConcurrentMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+
+    private final AtomicLong loads = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong();
+
+    public SingleFlight(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Returns the value for the given key, either by running the given loader or by waiting for a load of the same key
+     * that is already running.
+     */
+    public V load(K key, Supplier<V> loader) {
+        CompletableFuture<V> flight = new CompletableFuture<>();
+        CompletableFuture<V> existing = inFlight.putIfAbsent(key, flight);
+        if (existing != null) {
+            coalesced.incrementAndGet();
+            return await(existing);
+        }
+
+        loads.incrementAndGet();
+        try {
+            V value = loader.get();
+            flight.complete(value);
+            return value;
+        } catch (RuntimeException | Error e) {
+            flight.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, flight);
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Returns how many loads have been run.
+     */
+    public long getLoads() {
+        return loads.get();
+    }
+
+    /**
+     * Returns how many callers shared another caller's load instead of running their own.
+     */
+    public long getCoalesced() {
+        return coalesced.get();
+    }
+
+    /**
+     * Returns how many loads are running right now.
+     */
+    public int getInFlight() {
+        return inFlight.size();
+    }
+
+    /*
+    Helper function that waits for another caller's load, failing with the same exception if it failed.
+     */
+    private static <V> V await(CompletableFuture<V> flight) {
+        try {
+            return flight.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw e;
+        }
+    }
+}
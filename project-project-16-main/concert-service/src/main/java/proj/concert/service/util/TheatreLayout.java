@@ -62,6 +62,104 @@ public class TheatreLayout {
 
     }
 
+    /**
+     * Returns the position of the given seat label within the theatre layout, counting row by row from seat A1. This
+     * is the same order in which {@link #createSeatsFor(LocalDateTime)} lays out seats.
+     *
+     * @param label the seat label, e.g. "C5"
+     * @return the seat index, or -1 if the label does not name a seat in this theatre
+     */
+    public static int indexOf(String label) {
+        if (label == null || label.length() < 2) {
+            return -1;
+        }
+
+        int rowNum = label.charAt(0) - 'A';
+        if (rowNum < 0 || rowNum >= NUM_ROWS) {
+            return -1;
+        }
+
+        int seatNum;
+        try {
+            seatNum = Integer.parseInt(label.substring(1));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+        if (seatNum < 1 || seatNum > NUM_SEATS_PER_ROW) {
+            return -1;
+        }
+
+        return rowNum * NUM_SEATS_PER_ROW + (seatNum - 1);
+    }
+
+    /**
+     * Returns the label of the seat at the given position within the theatre layout.
+     *
+     * @param index the seat index, as returned by {@link #indexOf(String)}
+     * @return the seat label
+     */
+    public static String labelOf(int index) {
+        char rowLabel = (char) ('A' + index / NUM_SEATS_PER_ROW);
+        return "" + rowLabel + (index % NUM_SEATS_PER_ROW + 1);
+    }
+
+    /**
+     * Returns the price band that the seat at the given position belongs to.
+     *
+     * @param index the seat index, as returned by {@link #indexOf(String)}
+     * @return the price band
+     */
+    public static PriceBand priceBandOf(int index) {
+        return PRICE_BANDS[priceBandIndexOf(index)];
+    }
+
+    /**
+     * Returns the position within {@link #PRICE_BANDS} of the price band that the seat at the given position belongs
+     * to.
+     *
+     * @param index the seat index, as returned by {@link #indexOf(String)}
+     * @return the price band index
+     */
+    public static int priceBandIndexOf(int index) {
+        int rowNum = index / NUM_SEATS_PER_ROW;
+        for (int i = 0; i < PRICE_BANDS.length; i++) {
+            if (rowNum < PRICE_BANDS[i].numRows) {
+                return i;
+            }
+            rowNum -= PRICE_BANDS[i].numRows;
+        }
+        return PRICE_BANDS.length - 1;
+    }
+
+    /**
+     * Returns the position within {@link #PRICE_BANDS} of the price band with the given name.
+     *
+     * @param name the price band name, e.g. "Gold Seating"
+     * @return the price band index, or -1 if there is no such price band
+     */
+    public static int priceBandIndexOf(String name) {
+        for (int i = 0; i < PRICE_BANDS.length; i++) {
+            if (PRICE_BANDS[i].name.equals(name)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the number of the front row of the given price band, counting from row A as 0.
+     *
+     * @param priceBandIndex the price band index, as returned by {@link #priceBandIndexOf(int)}
+     * @return the row number
+     */
+    public static int firstRowOf(int priceBandIndex) {
+        int rowNum = 0;
+        for (int i = 0; i < priceBandIndex; i++) {
+            rowNum += PRICE_BANDS[i].numRows;
+        }
+        return rowNum;
+    }
+
     public static class PriceBand {
         public String name;
         public BigDecimal price;
@@ -0,0 +1,144 @@
+package proj.concert.service.util;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * A hashed timer wheel. Scheduled tasks are dropped into one of a fixed number of slots according to their deadline,
+ * and a single background thread visits one slot per tick, running whichever of its tasks are due. Scheduling and
+ * cancelling are both O(1), and no matter how many tasks are pending only one thread is used.
+ * <p>
+ * Tasks run on the wheel's thread, up to one tick late, and so should be short.
+ */
+public class TimerWheel {
+
+    private static Logger LOGGER = LoggerFactory.getLogger(TimerWheel.class);
+
+    private final long tickMillis;
+    private final List<Set<Timeout>> slots;
+    private final Thread worker;
+
+    private long nextTick;
+    private volatile boolean running = true;
+
+    public TimerWheel(long tickMillis, int numSlots, String name) {
+        this.tickMillis = tickMillis;
+        this.slots = new ArrayList<>(numSlots);
+        for (int i = 0; i < numSlots; i++) {
+            slots.add(new HashSet<>());
+        }
+        this.nextTick = currentTick();
+
+        this.worker = new Thread(this::run, name);
+        this.worker.setDaemon(true);
+        this.worker.start();
+    }
+
+    /**
+     * Schedules the given task to run once, after the given delay.
+     *
+     * @return a handle that can be used to cancel the task
+     */
+    public Timeout schedule(Runnable task, long delayMillis) {
+        long deadline = System.currentTimeMillis() + delayMillis;
+        // Round up, so that a task never runs before its deadline.
+        Timeout timeout = new Timeout(task, deadline, (deadline + tickMillis - 1) / tickMillis);
+        synchronized (this) {
+            // Never place a task in a slot the worker has already passed this time round.
+            long tick = Math.max(timeout.deadlineTick, nextTick);
+            timeout.slot = slots.get((int) (tick % slots.size()));
+            timeout.slot.add(timeout);
+        }
+        return timeout;
+    }
+
+    /**
+     * Stops the wheel. Pending tasks are discarded without being run.
+     */
+    public void stop() {
+        running = false;
+        worker.interrupt();
+    }
+
+    private long currentTick() {
+        return System.currentTimeMillis() / tickMillis;
+    }
+
+    private void run() {
+        while (running) {
+            try {
+                Thread.sleep(tickMillis);
+            } catch (InterruptedException e) {
+                continue;
+            }
+
+            List<Timeout> due = new ArrayList<>();
+            synchronized (this) {
+                long tick = currentTick();
+                for (; nextTick <= tick; nextTick++) {
+                    Iterator<Timeout> it = slots.get((int) (nextTick % slots.size())).iterator();
+                    while (it.hasNext()) {
+                        Timeout timeout = it.next();
+                        // Tasks from later rounds share the slot, and stay put until their own tick comes round.
+                        if (timeout.deadlineTick <= nextTick) {
+                            it.remove();
+                            timeout.slot = null;
+                            due.add(timeout);
+                        }
+                    }
+                }
+            }
+
+            for (Timeout timeout : due) {
+                try {
+                    timeout.task.run();
+                } catch (RuntimeException e) {
+                    LOGGER.warn("run(): Scheduled task failed", e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Handle to a task scheduled on a {@link TimerWheel}.
+     */
+    public class Timeout {
+
+        private final Runnable task;
+        private final long deadline;
+        private final long deadlineTick;
+        private Set<Timeout> slot;
+
+        private Timeout(Runnable task, long deadline, long deadlineTick) {
+            this.task = task;
+            this.deadline = deadline;
+            this.deadlineTick = deadlineTick;
+        }
+
+        public long getDeadline() {
+            return deadline;
+        }
+
+        /**
+         * Cancels the task.
+         *
+         * @return true if the task was cancelled, false if it had already run or been cancelled
+         */
+        public boolean cancel() {
+            synchronized (TimerWheel.this) {
+                if (slot == null) {
+                    return false;
+                }
+                slot.remove(this);
+                slot = null;
+                return true;
+            }
+        }
+    }
+}
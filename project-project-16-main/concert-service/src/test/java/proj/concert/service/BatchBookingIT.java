@@ -0,0 +1,152 @@
+package proj.concert.service;
+
+import org.junit.*;
+
+import proj.concert.common.dto.*;
+
+import javax.ws.rs.client.Client;
+import javax.ws.rs.client.ClientBuilder;
+import javax.ws.rs.client.Entity;
+import javax.ws.rs.core.GenericType;
+import javax.ws.rs.core.Response;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.*;
+
+public class BatchBookingIT {
+
+    private static final String WEB_SERVICE_URI = "http://localhost:10000/services/concert-service";
+    private static final LocalDateTime DATE = LocalDateTime.of(2020, 2, 15, 20, 0, 0);
+    private Client client;
+
+    /**
+     * Ensures the DB is in the same state before running each test.
+     */
+    @Before
+    public void setUp() {
+
+        client = ClientBuilder.newClient();
+
+        Response response = client
+                .target(WEB_SERVICE_URI + "-test/reset")
+                .request().get();
+
+        assertEquals(Response.Status.NO_CONTENT.getStatusCode(), response.getStatus());
+    }
+
+    /**
+     * Kills the client after every test, to get rid of any leftover cookies.
+     */
+    @After
+    public void tearDown() {
+        client.close();
+        client = null;
+    }
+
+    /**
+     * Tests that each request in a batch gets the same status it would have got on its own, and that only the
+     * successful requests end up booked.
+     */
+    @Test
+    public void testBatchReportsStatusPerItem() {
+        login(client, "testuser", "pa55word");
+
+        List<BookingRequestDTO> batch = Arrays.asList(
+                new BookingRequestDTO(1, DATE, Arrays.asList("C5", "C6")),
+                new BookingRequestDTO(1, DATE, Arrays.asList("C6", "C7")),          // clashes with the first
+                new BookingRequestDTO(1, DATE, Arrays.asList("D1")),
+                new BookingRequestDTO(1, DATE, Arrays.asList("Z99")),               // no such seat
+                new BookingRequestDTO(1, DATE.plusDays(1), Arrays.asList("A1")),    // wrong date
+                new BookingRequestDTO(9999, DATE, Arrays.asList("A1")));            // no such concert
+
+        List<BookingResultDTO> results = attemptBatch(batch);
+        assertEquals(6, results.size());
+
+        int[] expected = {201, 403, 201, 404, 400, 400};
+        for (int i = 0; i < expected.length; i++) {
+            assertEquals(i, results.get(i).getIndex());
+            assertEquals("Unexpected status for request " + i, expected[i], results.get(i).getStatus());
+        }
+        assertEquals(2, results.get(0).getBooking().getSeats().size());
+        assertNull(results.get(1).getBooking());
+
+        Set<String> booked = getBookedSeats();
+        assertEquals(new HashSet<>(Arrays.asList("C5", "C6", "D1")), booked);
+
+        SeatAvailabilityDTO availability = client.target(WEB_SERVICE_URI + "/seats/2020-02-15T20:00:00/availability")
+                .request().get(SeatAvailabilityDTO.class);
+        assertEquals(117, availability.getNumSeatsRemaining());
+
+        List<BookingDTO> bookings = client.target(WEB_SERVICE_URI + "/bookings")
+                .request().get(new GenericType<List<BookingDTO>>() {
+                });
+        assertEquals(2, bookings.size());
+    }
+
+    /**
+     * Tests that a large batch covering every seat in the theatre books them all.
+     */
+    @Test
+    public void testBatchBooksWholeTheatre() {
+        login(client, "testuser", "pa55word");
+
+        List<BookingRequestDTO> batch = new ArrayList<>();
+        for (char row = 'A'; row <= 'J'; row++) {
+            for (int num = 1; num <= 12; num++) {
+                batch.add(new BookingRequestDTO(1, DATE, Arrays.asList("" + row + num)));
+            }
+        }
+
+        List<BookingResultDTO> results = attemptBatch(batch);
+        assertEquals(120, results.size());
+        for (BookingResultDTO result : results) {
+            assertEquals(Response.Status.CREATED.getStatusCode(), result.getStatus());
+        }
+        assertEquals(120, getBookedSeats().size());
+    }
+
+    /**
+     * Tests that a batch can't be made without logging in.
+     */
+    @Test
+    public void testAttemptUnauthorizedBatch() {
+        List<BookingRequestDTO> batch = Arrays.asList(new BookingRequestDTO(1, DATE, Arrays.asList("C5")));
+
+        Response response = client.target(WEB_SERVICE_URI + "/bookings/batch").request().post(Entity.json(batch));
+        assertEquals(Response.Status.UNAUTHORIZED.getStatusCode(), response.getStatus());
+        assertEquals(0, getBookedSeats().size());
+    }
+
+    // Helper methods
+    // --------------------------------------------------------------------
+
+    private List<BookingResultDTO> attemptBatch(List<BookingRequestDTO> batch) {
+        Response response = client.target(WEB_SERVICE_URI + "/bookings/batch").request().post(Entity.json(batch));
+        assertEquals(Response.Status.OK.getStatusCode(), response.getStatus());
+        return response.readEntity(new GenericType<List<BookingResultDTO>>() {
+        });
+    }
+
+    private Set<String> getBookedSeats() {
+        List<SeatDTO> seats = client.target(WEB_SERVICE_URI + "/seats/2020-02-15T20:00:00?status=Booked")
+                .request().get(new GenericType<List<SeatDTO>>() {
+                });
+        return seats.stream().map(SeatDTO::getLabel).collect(Collectors.toSet());
+    }
+
+    /**
+     * Helper method to log us in.
+     */
+    private static Response login(Client client, String username, String password) {
+        UserDTO creds = new UserDTO(username, password);
+        return client.target(WEB_SERVICE_URI + "/login")
+                .request().post(Entity.json(creds));
+    }
+
+}
@@ -0,0 +1,147 @@
+package proj.concert.service;
+
+import org.hibernate.EmptyInterceptor;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.type.Type;
+import org.junit.*;
+
+import proj.concert.common.dto.*;
+import proj.concert.service.domain.Booking;
+import proj.concert.service.services.ConcertResource;
+import proj.concert.service.services.PersistenceManager;
+import proj.concert.service.services.SeatAvailabilityManager;
+import proj.concert.service.util.ConcertUtils;
+import proj.concert.service.util.TheatreLayout;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceException;
+import javax.ws.rs.core.Cookie;
+import javax.ws.rs.core.Response;
+import java.io.Serializable;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests batches of bookings whose writes fail in the database, in ways that can't be brought about through the web
+ * service itself: a seat with no row, and a database error part way through a batch. Like BookingRetryTest, this runs
+ * the web service in the same JVM, against an in-memory database.
+ */
+public class BatchBookingTest {
+
+    private static final LocalDateTime DATE = LocalDateTime.of(2020, 2, 15, 20, 0, 0);
+    private static final LocalDateTime FAILING_DATE = LocalDateTime.of(2020, 1, 23, 20, 0, 0);
+
+    static {
+        // Hibernate reads its settings from the system properties when first loaded, so these must be set before that.
+        System.setProperty("concert.db.profile", "memory");
+        System.setProperty(AvailableSettings.INTERCEPTOR, FailingBookingInterceptor.class.getName());
+    }
+
+    private Cookie auth;
+
+    /**
+     * Ensures the DB is in the same state before running each test, and logs in.
+     */
+    @Before
+    public void setUp() {
+        PersistenceManager.instance().reset();
+        ConcertUtils.initConcerts();
+        FailingBookingInterceptor.failingDate = null;
+
+        Response response = new ConcertResource().login(new UserDTO("testuser", "pa55word"), null);
+        assertEquals(Response.Status.OK.getStatusCode(), response.getStatus());
+        auth = response.getCookies().get("auth");
+        assertNotNull(auth);
+    }
+
+    /**
+     * Tests that a request for a seat with no row in the database fails with 409 rather than being booked without it,
+     * and that the other requests in its group are still booked.
+     */
+    @Test
+    public void testMissingSeatRowFailsRequest() {
+        deleteSeat(DATE, "A2");
+
+        List<BookingResultDTO> results = bookBatch(Arrays.asList(
+                new BookingRequestDTO(1, DATE, Collections.singletonList("A1")),
+                new BookingRequestDTO(1, DATE, Arrays.asList("A2", "A3"))));
+
+        assertEquals(Response.Status.CREATED.getStatusCode(), results.get(0).getStatus());
+        assertEquals(1, results.get(0).getBooking().getSeats().size());
+        assertEquals(Response.Status.CONFLICT.getStatusCode(), results.get(1).getStatus());
+        assertEquals(TheatreLayout.NUM_SEATS_IN_THEATRE - 1,
+                SeatAvailabilityManager.instance().getAvailability(1, DATE).getCounters().getRemaining());
+
+        // The failed request's seats were handed back.
+        assertEquals(Response.Status.CREATED.getStatusCode(), bookBatch(Collections.singletonList(
+                new BookingRequestDTO(1, DATE, Collections.singletonList("A3")))).get(0).getStatus());
+    }
+
+    /**
+     * Tests that a database error in a later group of a batch gives that group's requests 500, while the results of the
+     * bookings already committed for earlier groups are kept.
+     */
+    @Test
+    public void testFailingGroupKeepsEarlierResults() {
+        FailingBookingInterceptor.failingDate = FAILING_DATE;
+
+        List<BookingResultDTO> results = bookBatch(Arrays.asList(
+                new BookingRequestDTO(1, DATE, Collections.singletonList("A1")),
+                new BookingRequestDTO(3, FAILING_DATE, Collections.singletonList("A1")),
+                new BookingRequestDTO(3, FAILING_DATE, Collections.singletonList("A2"))));
+
+        assertEquals(Response.Status.CREATED.getStatusCode(), results.get(0).getStatus());
+        assertNotNull(results.get(0).getBooking());
+        assertEquals(Response.Status.INTERNAL_SERVER_ERROR.getStatusCode(), results.get(1).getStatus());
+        assertEquals(Response.Status.INTERNAL_SERVER_ERROR.getStatusCode(), results.get(2).getStatus());
+
+        // The failed requests' seats were handed back.
+        FailingBookingInterceptor.failingDate = null;
+        assertEquals(Response.Status.CREATED.getStatusCode(), bookBatch(Collections.singletonList(
+                new BookingRequestDTO(3, FAILING_DATE, Collections.singletonList("A1")))).get(0).getStatus());
+    }
+
+    // Helper methods
+    // --------------------------------------------------------------------
+
+    @SuppressWarnings("unchecked")
+    private List<BookingResultDTO> bookBatch(List<BookingRequestDTO> batch) {
+        Response response = new ConcertResource().makeBookings(batch, auth);
+        assertEquals(Response.Status.OK.getStatusCode(), response.getStatus());
+        return (List<BookingResultDTO>) response.getEntity();
+    }
+
+    private static void deleteSeat(LocalDateTime date, String label) {
+        EntityManager em = PersistenceManager.instance().createEntityManager();
+        try {
+            em.getTransaction().begin();
+            em.createQuery("delete from Seat s where s.date = :date and s.label = :label")
+                    .setParameter("date", date)
+                    .setParameter("label", label)
+                    .executeUpdate();
+            em.getTransaction().commit();
+        } finally {
+            em.close();
+        }
+    }
+
+    /**
+     * Fails every booking for failingDate as it is saved, as a database error would.
+     */
+    public static class FailingBookingInterceptor extends EmptyInterceptor {
+
+        static volatile LocalDateTime failingDate;
+
+        @Override
+        public boolean onSave(Object entity, Serializable id, Object[] state, String[] propertyNames, Type[] types) {
+            if (entity instanceof Booking && ((Booking) entity).getDate().equals(failingDate)) {
+                throw new PersistenceException("Failing booking for " + failingDate);
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package proj.concert.service;
+
+import org.junit.*;
+
+import proj.concert.common.dto.*;
+
+import javax.ws.rs.client.Client;
+import javax.ws.rs.client.ClientBuilder;
+import javax.ws.rs.client.Entity;
+import javax.ws.rs.core.Response;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.*;
+
+public class BestAvailableBookingIT {
+
+    private static final String WEB_SERVICE_URI = "http://localhost:10000/services/concert-service";
+    private static final LocalDateTime DATE = LocalDateTime.of(2020, 2, 15, 20, 0, 0);
+    private Client client;
+
+    /**
+     * Ensures the DB is in the same state before running each test.
+     */
+    @Before
+    public void setUp() {
+
+        client = ClientBuilder.newClient();
+
+        Response response = client
+                .target(WEB_SERVICE_URI + "-test/reset")
+                .request().get();
+
+        assertEquals(Response.Status.NO_CONTENT.getStatusCode(), response.getStatus());
+    }
+
+    /**
+     * Kills the client after every test, to get rid of any leftover cookies.
+     */
+    @After
+    public void tearDown() {
+        client.close();
+        client = null;
+    }
+
+    /**
+     * Tests that seats are allocated from the front row of the band first, as close to the centre as possible.
+     */
+    @Test
+    public void testAllocatesFrontCentreFirst() {
+        login(client, "testuser", "pa55word");
+
+        // Gold seating starts at row F.
+        assertEquals(Arrays.asList("F5", "F6", "F7", "F8"), bookBestAvailable(4, "Gold Seating"));
+        assertEquals(Arrays.asList("F1", "F2", "F3", "F4"), bookBestAvailable(4, "Gold Seating"));
+        assertEquals(Arrays.asList("F9", "F10", "F11", "F12"), bookBestAvailable(4, "Gold Seating"));
+        assertEquals(Arrays.asList("G6", "G7"), bookBestAvailable(2, "Gold Seating"));
+    }
+
+    /**
+     * Tests that seats picked by the web service avoid seats that have already been booked.
+     */
+    @Test
+    public void testAllocationSkipsBookedSeats() {
+        login(client, "testuser", "pa55word");
+
+        BookingRequestDTO bReq = new BookingRequestDTO(1, DATE, Arrays.asList("I6"));
+        Response response = client.target(WEB_SERVICE_URI + "/bookings").request().post(Entity.json(bReq));
+        assertEquals(Response.Status.CREATED.getStatusCode(), response.getStatus());
+
+        // Silver seating is rows I and J. I6 splits row I into runs of 5 and 6, so a block of 6 goes after it.
+        assertEquals(Arrays.asList("I7", "I8", "I9", "I10", "I11", "I12"), bookBestAvailable(6, "Silver Seating"));
+        assertEquals(Arrays.asList("J1", "J2", "J3", "J4", "J5", "J6", "J7", "J8", "J9", "J10", "J11", "J12"),
+                bookBestAvailable(12, "Silver Seating"));
+
+        response = attemptBestAvailable(6, "Silver Seating");
+        assertEquals(Response.Status.FORBIDDEN.getStatusCode(), response.getStatus());
+
+        SeatAvailabilityDTO availability = client.target(WEB_SERVICE_URI + "/seats/2020-02-15T20:00:00/availability")
+                .request().get(SeatAvailabilityDTO.class);
+        assertEquals(5, (int) availability.getNumSeatsRemainingByPriceBand().get("Silver Seating"));
+    }
+
+    /**
+     * Tests that requests for an unknown price band or an impossible number of seats are rejected.
+     */
+    @Test
+    public void testAttemptBadBestAvailableRequest() {
+        login(client, "testuser", "pa55word");
+
+        assertEquals(Response.Status.BAD_REQUEST.getStatusCode(), attemptBestAvailable(2, "Bronze Seating").getStatus());
+        assertEquals(Response.Status.BAD_REQUEST.getStatusCode(), attemptBestAvailable(0, "Gold Seating").getStatus());
+        assertEquals(Response.Status.BAD_REQUEST.getStatusCode(), attemptBestAvailable(13, "Gold Seating").getStatus());
+    }
+
+    // Helper methods
+    // --------------------------------------------------------------------
+
+    private List<String> bookBestAvailable(int numSeats, String priceBand) {
+        Response response = attemptBestAvailable(numSeats, priceBand);
+        assertEquals(Response.Status.CREATED.getStatusCode(), response.getStatus());
+        BookingDTO booking = response.readEntity(BookingDTO.class);
+        return booking.getSeats().stream()
+                .map(SeatDTO::getLabel)
+                .sorted((a, b) -> Integer.compare(Integer.parseInt(a.substring(1)), Integer.parseInt(b.substring(1))))
+                .collect(Collectors.toList());
+    }
+
+    private Response attemptBestAvailable(int numSeats, String priceBand) {
+        BestAvailableRequestDTO req = new BestAvailableRequestDTO(1, DATE, numSeats, priceBand);
+        return client.target(WEB_SERVICE_URI + "/bookings/best-available").request().post(Entity.json(req));
+    }
+
+    /**
+     * Helper method to log us in.
+     */
+    private static Response login(Client client, String username, String password) {
+        UserDTO creds = new UserDTO(username, password);
+        return client.target(WEB_SERVICE_URI + "/login")
+                .request().post(Entity.json(creds));
+    }
+
+}
@@ -0,0 +1,135 @@
+package proj.concert.service;
+
+import org.junit.*;
+
+import proj.concert.common.dto.*;
+
+import javax.ws.rs.client.Client;
+import javax.ws.rs.client.ClientBuilder;
+import javax.ws.rs.client.Entity;
+import javax.ws.rs.core.GenericType;
+import javax.ws.rs.core.Response;
+import java.net.URI;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class BookingCancellationIT {
+
+    private static final String WEB_SERVICE_URI = "http://localhost:10000/services/concert-service";
+    private static final LocalDateTime DATE = LocalDateTime.of(2020, 2, 15, 20, 0, 0);
+    private Client client;
+
+    /**
+     * Ensures the DB is in the same state before running each test.
+     */
+    @Before
+    public void setUp() {
+
+        client = ClientBuilder.newClient();
+
+        Response response = client
+                .target(WEB_SERVICE_URI + "-test/reset")
+                .request().get();
+
+        assertEquals(Response.Status.NO_CONTENT.getStatusCode(), response.getStatus());
+    }
+
+    /**
+     * Kills the client after every test, to get rid of any leftover cookies.
+     */
+    @After
+    public void tearDown() {
+        client.close();
+        client = null;
+    }
+
+    /**
+     * Tests that cancelling a booking removes it, and makes its seats available to be booked again.
+     */
+    @Test
+    public void testCancelBooking() {
+        login(client, "testuser", "pa55word");
+
+        URI bookingUri = makeBooking(client, "A1", "F1", "J1");
+        assertEquals(117, getAvailability().getNumSeatsRemaining());
+
+        Response response = client.target(bookingUri).request().delete();
+        assertEquals(Response.Status.NO_CONTENT.getStatusCode(), response.getStatus());
+
+        SeatAvailabilityDTO availability = getAvailability();
+        assertEquals(120, availability.getNumSeatsRemaining());
+        assertEquals(60, (int) availability.getNumSeatsRemainingByPriceBand().get("Platinum Seating"));
+        assertEquals(36, (int) availability.getNumSeatsRemainingByPriceBand().get("Gold Seating"));
+        assertEquals(24, (int) availability.getNumSeatsRemainingByPriceBand().get("Silver Seating"));
+
+        List<SeatDTO> booked = client.target(WEB_SERVICE_URI + "/seats/2020-02-15T20:00:00?status=Booked")
+                .request().get(new GenericType<List<SeatDTO>>() {
+                });
+        assertEquals(0, booked.size());
+
+        List<BookingDTO> bookings = client.target(WEB_SERVICE_URI + "/bookings")
+                .request().get(new GenericType<List<BookingDTO>>() {
+                });
+        assertEquals(0, bookings.size());
+
+        response = client.target(bookingUri).request().delete();
+        assertEquals(Response.Status.NOT_FOUND.getStatusCode(), response.getStatus());
+
+        // The same seats can now be booked again.
+        makeBooking(client, "A1", "F1", "J1");
+    }
+
+    /**
+     * Tests that users can't cancel each other's bookings, or cancel anything without logging in.
+     */
+    @Test
+    public void testAttemptCancelOthersBooking() {
+        login(client, "testuser", "pa55word");
+        URI bookingUri = makeBooking(client, "C5");
+
+        Client user2Client = ClientBuilder.newClient();
+        try {
+            Response response = user2Client.target(bookingUri).request().delete();
+            assertEquals(Response.Status.UNAUTHORIZED.getStatusCode(), response.getStatus());
+
+            login(user2Client, "testuser2", "pa55word");
+            response = user2Client.target(bookingUri).request().delete();
+            assertEquals(Response.Status.FORBIDDEN.getStatusCode(), response.getStatus());
+        } finally {
+            user2Client.close();
+        }
+
+        assertEquals(119, getAvailability().getNumSeatsRemaining());
+    }
+
+    // Helper methods
+    // --------------------------------------------------------------------
+
+    private SeatAvailabilityDTO getAvailability() {
+        return client.target(WEB_SERVICE_URI + "/seats/2020-02-15T20:00:00/availability")
+                .request().get(SeatAvailabilityDTO.class);
+    }
+
+    /**
+     * Books the given seats for concert 1, and returns the location of the new booking. Should already be logged in.
+     */
+    private static URI makeBooking(Client client, String... seatLabels) {
+        BookingRequestDTO bReq = new BookingRequestDTO(1, DATE, Arrays.asList(seatLabels));
+        Response response = client.target(WEB_SERVICE_URI + "/bookings").request().post(Entity.json(bReq));
+        assertEquals(Response.Status.CREATED.getStatusCode(), response.getStatus());
+        return response.getLocation();
+    }
+
+    /**
+     * Helper method to log us in.
+     */
+    private static Response login(Client client, String username, String password) {
+        UserDTO creds = new UserDTO(username, password);
+        return client.target(WEB_SERVICE_URI + "/login")
+                .request().post(Entity.json(creds));
+    }
+
+}
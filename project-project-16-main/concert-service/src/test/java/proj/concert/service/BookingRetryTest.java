@@ -0,0 +1,135 @@
+package proj.concert.service;
+
+import org.hibernate.EmptyInterceptor;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.type.Type;
+import org.junit.*;
+
+import proj.concert.common.dto.*;
+import proj.concert.service.domain.Seat;
+import proj.concert.service.services.ConcertResource;
+import proj.concert.service.services.PersistenceManager;
+import proj.concert.service.util.ConcertUtils;
+
+import javax.persistence.EntityManager;
+import javax.ws.rs.core.Cookie;
+import javax.ws.rs.core.Response;
+import java.io.Serializable;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests the retry of a booking whose seat was changed in the database behind the booking's back, leaving it with a
+ * stale Seat version. Bookings claim their seats in memory before writing them, so no other booking can cause this;
+ * it takes a write that bypasses the web service. This test makes one by bumping the seat's version just before the
+ * booking's update goes out, so unlike the integration tests it runs the web service in the same JVM, against an
+ * in-memory database.
+ */
+public class BookingRetryTest {
+
+    private static final LocalDateTime DATE = LocalDateTime.of(2020, 2, 15, 20, 0, 0);
+    private static final int MAX_ATTEMPTS = 3;
+
+    static {
+        // Hibernate reads its settings from the system properties when first loaded, so these must be set before that.
+        System.setProperty("concert.db.profile", "memory");
+        System.setProperty("concert.booking.retry.maxAttempts", String.valueOf(MAX_ATTEMPTS));
+        System.setProperty("concert.booking.retry.baseDelayMillis", "1");
+        System.setProperty("concert.booking.retry.maxDelayMillis", "5");
+        System.setProperty(AvailableSettings.INTERCEPTOR, StaleSeatInterceptor.class.getName());
+    }
+
+    private Cookie auth;
+
+    /**
+     * Ensures the DB is in the same state before running each test, and logs in.
+     */
+    @Before
+    public void setUp() {
+        PersistenceManager.instance().reset();
+        ConcertUtils.initConcerts();
+        StaleSeatInterceptor.staleWrites.set(0);
+        StaleSeatInterceptor.seatWrites.set(0);
+
+        Response response = new ConcertResource().login(new UserDTO("testuser", "pa55word"), null);
+        assertEquals(Response.Status.OK.getStatusCode(), response.getStatus());
+        auth = response.getCookies().get("auth");
+        assertNotNull(auth);
+    }
+
+    /**
+     * Tests that a booking whose first write hits a stale seat version is retried, and succeeds.
+     */
+    @Test
+    public void testStaleSeatVersionRetried() {
+        StaleSeatInterceptor.staleWrites.set(1);
+
+        Response response = book("A1");
+
+        assertEquals(Response.Status.CREATED.getStatusCode(), response.getStatus());
+        assertEquals(2, StaleSeatInterceptor.seatWrites.get());
+    }
+
+    /**
+     * Tests that a booking which hits a stale seat version on every attempt gives up after the configured number of
+     * attempts with a 409, and hands its seat back so it can be booked afterwards.
+     */
+    @Test
+    public void testPersistentStaleSeatVersionGivesConflict() {
+        StaleSeatInterceptor.staleWrites.set(Integer.MAX_VALUE);
+
+        Response response = book("A1");
+
+        assertEquals(Response.Status.CONFLICT.getStatusCode(), response.getStatus());
+        assertEquals(MAX_ATTEMPTS, StaleSeatInterceptor.seatWrites.get());
+
+        StaleSeatInterceptor.staleWrites.set(0);
+        assertEquals(Response.Status.CREATED.getStatusCode(), book("A1").getStatus());
+    }
+
+    // Helper methods
+    // --------------------------------------------------------------------
+
+    private Response book(String seatLabel) {
+        BookingRequestDTO bReq = new BookingRequestDTO(1, DATE, Collections.singletonList(seatLabel));
+        return new ConcertResource().makeBooking(bReq, auth);
+    }
+
+    /**
+     * Counts the seat updates Hibernate flushes, and while staleWrites is positive, bumps each seat's version in the
+     * database just before its update goes out, in a separate transaction.
+     */
+    public static class StaleSeatInterceptor extends EmptyInterceptor {
+
+        static final AtomicInteger staleWrites = new AtomicInteger();
+        static final AtomicInteger seatWrites = new AtomicInteger();
+
+        @Override
+        public boolean onFlushDirty(Object entity, Serializable id, Object[] currentState, Object[] previousState,
+                                    String[] propertyNames, Type[] types) {
+            if (entity instanceof Seat) {
+                seatWrites.incrementAndGet();
+                if (staleWrites.getAndUpdate(n -> Math.max(0, n - 1)) > 0) {
+                    bumpVersion((Long) id);
+                }
+            }
+            return false;
+        }
+
+        private static void bumpVersion(long seatId) {
+            EntityManager em = PersistenceManager.instance().createEntityManager();
+            try {
+                em.getTransaction().begin();
+                em.createQuery("update Seat s set s.version = s.version + 1 where s.id = :id")
+                        .setParameter("id", seatId)
+                        .executeUpdate();
+                em.getTransaction().commit();
+            } finally {
+                em.close();
+            }
+        }
+    }
+}
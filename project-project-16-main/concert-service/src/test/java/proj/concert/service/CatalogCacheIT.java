@@ -0,0 +1,199 @@
+package proj.concert.service;
+
+import org.junit.*;
+
+import proj.concert.common.dto.*;
+
+import javax.ws.rs.client.Client;
+import javax.ws.rs.client.ClientBuilder;
+import javax.ws.rs.client.Entity;
+import javax.ws.rs.core.EntityTag;
+import javax.ws.rs.core.GenericType;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.Response;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class CatalogCacheIT {
+
+    private static final String WEB_SERVICE_URI = "http://localhost:10000/services/concert-service";
+    private Client client;
+
+    /**
+     * Ensures the DB is in the same state before running each test.
+     */
+    @Before
+    public void setUp() {
+
+        client = ClientBuilder.newClient();
+
+        Response response = client
+                .target(WEB_SERVICE_URI + "-test/reset")
+                .request().get();
+
+        assertEquals(Response.Status.NO_CONTENT.getStatusCode(), response.getStatus());
+    }
+
+    /**
+     * Kills the client after every test, to get rid of any leftover cookies.
+     */
+    @After
+    public void tearDown() {
+        client.close();
+        client = null;
+    }
+
+    /**
+     * Tests that repeated catalog reads are answered from the cache, and that this shows up in the statistics.
+     */
+    @Test
+    public void testRepeatedReadsHitCache() {
+        CacheStatsDTO before = getStats("concerts");
+
+        for (int i = 0; i < 3; i++) {
+            ConcertDTO concert = client.target(WEB_SERVICE_URI + "/concerts/1").request().get(ConcertDTO.class);
+            assertEquals("PTX: The World Tour", concert.getTitle());
+        }
+
+        CacheStatsDTO after = getStats("concerts");
+        assertEquals(1, after.getMisses() - before.getMisses());
+        assertEquals(2, after.getHits() - before.getHits());
+        assertTrue(after.getSize() >= 1);
+    }
+
+    /**
+     * Tests that updating a concert is seen straight away, both on its own and in the lists of concerts.
+     */
+    @Test
+    public void testUpdateInvalidatesConcert() {
+        ConcertDTO concert = client.target(WEB_SERVICE_URI + "/concerts/1").request().get(ConcertDTO.class);
+        getConcerts();
+        getSummaries();
+
+        concert.setTitle("PTX Live");
+        Response response = client.target(WEB_SERVICE_URI + "/concerts/1").request().put(Entity.json(concert));
+        assertEquals(Response.Status.OK.getStatusCode(), response.getStatus());
+
+        assertEquals("PTX Live", client.target(WEB_SERVICE_URI + "/concerts/1").request().get(ConcertDTO.class).getTitle());
+        assertTrue(getConcerts().stream().anyMatch(c -> c.getTitle().equals("PTX Live")));
+        assertTrue(getSummaries().stream().anyMatch(c -> c.getTitle().equals("PTX Live")));
+
+        // The updated concert is cached again once it has been read.
+        CacheStatsDTO before = getStats("concerts");
+        client.target(WEB_SERVICE_URI + "/concerts/1").request().get(ConcertDTO.class);
+        assertEquals(1, getStats("concerts").getHits() - before.getHits());
+    }
+
+    /**
+     * Tests that deleting a concert is seen straight away.
+     */
+    @Test
+    public void testDeleteInvalidatesConcert() {
+        int numConcerts = getConcerts().size();
+        assertEquals(Response.Status.OK.getStatusCode(),
+                client.target(WEB_SERVICE_URI + "/concerts/1").request().get().getStatus());
+
+        Response response = client.target(WEB_SERVICE_URI + "/concerts/1").request().delete();
+        assertEquals(Response.Status.NO_CONTENT.getStatusCode(), response.getStatus());
+
+        assertEquals(Response.Status.NOT_FOUND.getStatusCode(),
+                client.target(WEB_SERVICE_URI + "/concerts/1").request().get().getStatus());
+        assertEquals(numConcerts - 1, getConcerts().size());
+        assertEquals(numConcerts - 1, getSummaries().size());
+    }
+
+    /**
+     * Tests that deleting a concert, which also deletes its performers, is seen straight away by reads of those
+     * performers that were cached beforehand.
+     */
+    @Test
+    public void testDeleteInvalidatesPerformers() {
+        List<PerformerDTO> concertPerformers = client.target(WEB_SERVICE_URI + "/concerts/4").request()
+                .get(ConcertDTO.class).getPerformers();
+        assertFalse(concertPerformers.isEmpty());
+        int numPerformers = getPerformers().size();
+        for (PerformerDTO performer : concertPerformers) {
+            assertEquals(Response.Status.OK.getStatusCode(),
+                    client.target(WEB_SERVICE_URI + "/performers/" + performer.getId()).request().get().getStatus());
+        }
+
+        Response response = client.target(WEB_SERVICE_URI + "/concerts/4").request().delete();
+        assertEquals(Response.Status.NO_CONTENT.getStatusCode(), response.getStatus());
+
+        for (PerformerDTO performer : concertPerformers) {
+            assertEquals(Response.Status.NOT_FOUND.getStatusCode(),
+                    client.target(WEB_SERVICE_URI + "/performers/" + performer.getId()).request().get().getStatus());
+        }
+        List<PerformerDTO> performers = getPerformers();
+        assertEquals(numPerformers - concertPerformers.size(), performers.size());
+        assertTrue(performers.stream().noneMatch(p -> concertPerformers.stream().anyMatch(c -> c.getId().equals(p.getId()))));
+    }
+
+    /**
+     * Tests that the lists of concerts carry strong entity tags, that a client with the current tag gets 304 without
+     * anything being rendered, and that a change to the catalog moves the tag on.
+     */
+    @Test
+    public void testConcertListsNotModified() {
+        for (String path : new String[]{"/concerts", "/concerts/summaries"}) {
+            Response response = client.target(WEB_SERVICE_URI + path).request().get();
+            assertEquals(Response.Status.OK.getStatusCode(), response.getStatus());
+            EntityTag tag = response.getEntityTag();
+            assertNotNull(tag);
+            assertFalse(tag.isWeak());
+            response.close();
+
+            CacheStatsDTO before = getStats("renderedCatalog");
+            response = client.target(WEB_SERVICE_URI + path).request().header(HttpHeaders.IF_NONE_MATCH, tag).get();
+            assertEquals(Response.Status.NOT_MODIFIED.getStatusCode(), response.getStatus());
+            assertEquals(tag, response.getEntityTag());
+            response.close();
+
+            CacheStatsDTO after = getStats("renderedCatalog");
+            assertEquals(before.getHits(), after.getHits());
+            assertEquals(before.getMisses(), after.getMisses());
+        }
+
+        Response response = client.target(WEB_SERVICE_URI + "/concerts").request().get();
+        EntityTag oldTag = response.getEntityTag();
+        response.close();
+
+        ConcertDTO concert = client.target(WEB_SERVICE_URI + "/concerts/1").request().get(ConcertDTO.class);
+        concert.setTitle("PTX Live");
+        client.target(WEB_SERVICE_URI + "/concerts/1").request().put(Entity.json(concert)).close();
+
+        response = client.target(WEB_SERVICE_URI + "/concerts").request().header(HttpHeaders.IF_NONE_MATCH, oldTag).get();
+        assertEquals(Response.Status.OK.getStatusCode(), response.getStatus());
+        assertNotEquals(oldTag, response.getEntityTag());
+        List<ConcertDTO> concerts = response.readEntity(new GenericType<List<ConcertDTO>>() {
+        });
+        assertTrue(concerts.stream().anyMatch(c -> c.getTitle().equals("PTX Live")));
+    }
+
+    // Helper methods
+    // --------------------------------------------------------------------
+
+    private List<ConcertDTO> getConcerts() {
+        return client.target(WEB_SERVICE_URI + "/concerts").request().get(new GenericType<List<ConcertDTO>>() {
+        });
+    }
+
+    private List<ConcertSummaryDTO> getSummaries() {
+        return client.target(WEB_SERVICE_URI + "/concerts/summaries").request().get(new GenericType<List<ConcertSummaryDTO>>() {
+        });
+    }
+
+    private List<PerformerDTO> getPerformers() {
+        return client.target(WEB_SERVICE_URI + "/performers").request().get(new GenericType<List<PerformerDTO>>() {
+        });
+    }
+
+    private CacheStatsDTO getStats(String cacheName) {
+        List<CacheStatsDTO> stats = client.target(WEB_SERVICE_URI + "/stats/caches").request()
+                .get(new GenericType<List<CacheStatsDTO>>() {
+                });
+        return stats.stream().filter(s -> s.getName().equals(cacheName)).findFirst().orElseThrow(AssertionError::new);
+    }
+
+}
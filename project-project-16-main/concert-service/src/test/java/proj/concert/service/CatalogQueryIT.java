@@ -0,0 +1,113 @@
+package proj.concert.service;
+
+import org.junit.*;
+
+import proj.concert.common.dto.*;
+
+import javax.ws.rs.client.Client;
+import javax.ws.rs.client.ClientBuilder;
+import javax.ws.rs.client.Entity;
+import javax.ws.rs.core.GenericType;
+import javax.ws.rs.core.Response;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class CatalogQueryIT {
+
+    private static final String WEB_SERVICE_URI = "http://localhost:10000/services/concert-service";
+    private Client client;
+
+    /**
+     * Ensures the DB is in the same state before running each test.
+     */
+    @Before
+    public void setUp() {
+
+        client = ClientBuilder.newClient();
+
+        Response response = client
+                .target(WEB_SERVICE_URI + "-test/reset")
+                .request().get();
+
+        assertEquals(Response.Status.NO_CONTENT.getStatusCode(), response.getStatus());
+    }
+
+    /**
+     * Kills the client after every test, to get rid of any leftover cookies.
+     */
+    @After
+    public void tearDown() {
+        client.close();
+        client = null;
+    }
+
+    /**
+     * Tests that loading all concerts takes the same number of statements however many concerts there are.
+     */
+    @Test
+    public void testStatementCountIsConstant() {
+        long statements = countStatements("/concerts");
+        assertEquals(2, statements);
+
+        for (int i = 0; i < 10; i++) {
+            ConcertDTO concert = new ConcertDTO(null, "Concert " + i, "concert.jpg", "A new concert");
+            Response response = client.target(WEB_SERVICE_URI).request().post(Entity.json(concert));
+            assertEquals(Response.Status.CREATED.getStatusCode(), response.getStatus());
+            response.close();
+        }
+
+        assertEquals(statements, countStatements("/concerts"));
+    }
+
+    /**
+     * Tests that concert summaries are loaded with a single statement, and are only loaded again once a concert changes.
+     */
+    @Test
+    public void testSummariesUseSingleStatement() {
+        assertEquals(1, countStatements("/concerts/summaries"));
+        assertEquals(0, countStatements("/concerts/summaries"));
+
+        ConcertDTO concert = new ConcertDTO(null, "New Concert", "concert.jpg", "A new concert");
+        client.target(WEB_SERVICE_URI).request().post(Entity.json(concert)).close();
+
+        assertEquals(1, countStatements("/concerts/summaries"));
+        List<ConcertSummaryDTO> summaries = client.target(WEB_SERVICE_URI + "/concerts/summaries").request()
+                .get(new GenericType<List<ConcertSummaryDTO>>() {
+                });
+        assertTrue(summaries.stream().anyMatch(s -> s.getTitle().equals("New Concert")));
+    }
+
+    /**
+     * Tests that fetching dates and performers together doesn't repeat either of them. Concert 4 has two of each.
+     */
+    @Test
+    public void testDatesAndPerformersAreNotRepeated() {
+        ConcertDTO single = client.target(WEB_SERVICE_URI + "/concerts/4").request().get(ConcertDTO.class);
+
+        ConcertDTO fromList = getConcerts().stream()
+                .filter(c -> c.getId() == 4)
+                .findFirst().orElseThrow(AssertionError::new);
+
+        assertEquals(2, fromList.getDates().size());
+        assertEquals(2, fromList.getPerformers().size());
+        assertEquals(single.getDates().size(), fromList.getDates().size());
+        assertEquals(single.getPerformers().size(), fromList.getPerformers().size());
+    }
+
+    // Helper methods
+    // --------------------------------------------------------------------
+
+    private long countStatements(String path) {
+        QueryStatsDTO before = client.target(WEB_SERVICE_URI + "/stats/queries").request().get(QueryStatsDTO.class);
+        client.target(WEB_SERVICE_URI + path).request().get().close();
+        QueryStatsDTO after = client.target(WEB_SERVICE_URI + "/stats/queries").request().get(QueryStatsDTO.class);
+        return after.getStatements() - before.getStatements();
+    }
+
+    private List<ConcertDTO> getConcerts() {
+        return client.target(WEB_SERVICE_URI + "/concerts").request().get(new GenericType<List<ConcertDTO>>() {
+        });
+    }
+
+}
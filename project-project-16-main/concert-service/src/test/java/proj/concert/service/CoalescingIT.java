@@ -0,0 +1,124 @@
+package proj.concert.service;
+
+import org.junit.*;
+
+import proj.concert.common.dto.*;
+
+import javax.ws.rs.client.Client;
+import javax.ws.rs.client.ClientBuilder;
+import javax.ws.rs.core.GenericType;
+import javax.ws.rs.core.Response;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+
+import static org.junit.Assert.*;
+
+public class CoalescingIT {
+
+    private static final String WEB_SERVICE_URI = "http://localhost:10000/services/concert-service";
+    private static final int NUM_CLIENTS = 16;
+
+    private List<Client> clients;
+    private ExecutorService executor;
+
+    /**
+     * Ensures the DB is in the same state before running each test, and sets up a client for each thread.
+     */
+    @Before
+    public void setUp() {
+
+        clients = new ArrayList<>();
+        for (int i = 0; i < NUM_CLIENTS; i++) {
+            clients.add(ClientBuilder.newClient());
+        }
+
+        Response response = clients.get(0)
+                .target(WEB_SERVICE_URI + "-test/reset")
+                .request().get();
+
+        assertEquals(Response.Status.NO_CONTENT.getStatusCode(), response.getStatus());
+        executor = Executors.newFixedThreadPool(NUM_CLIENTS);
+    }
+
+    /**
+     * Kills the clients and threads after every test.
+     */
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+        for (Client c : clients) {
+            c.close();
+        }
+        clients = null;
+    }
+
+    /**
+     * Fires the same concert request from many threads at once. Every request must get the concert, and every request
+     * that missed the cache must either have run the load or shared one, which shows up in the statistics. Whether the
+     * requests overlap enough to share a load can't be controlled over HTTP, so that is tested by CoalescingTest.
+     */
+    @Test
+    public void testConcurrentReadsAccountedFor() throws InterruptedException, ExecutionException {
+        CacheStatsDTO cacheBefore = getCacheStats("concerts");
+        CoalescingStatsDTO before = getCoalescingStats("concerts");
+
+        List<ConcertDTO> concerts = getConcurrently("/concerts/4", ConcertDTO.class);
+
+        for (ConcertDTO concert : concerts) {
+            assertEquals(4, concert.getId().longValue());
+            assertEquals(2, concert.getDates().size());
+        }
+
+        CacheStatsDTO cacheAfter = getCacheStats("concerts");
+        CoalescingStatsDTO after = getCoalescingStats("concerts");
+        long misses = cacheAfter.getMisses() - cacheBefore.getMisses();
+        long hits = cacheAfter.getHits() - cacheBefore.getHits();
+        long loads = after.getLoads() - before.getLoads();
+        long coalesced = after.getCoalesced() - before.getCoalesced();
+
+        assertEquals(NUM_CLIENTS, hits + misses);
+        assertTrue(misses >= 1);
+        assertEquals(misses, loads + coalesced);
+        assertEquals(0, after.getInFlight());
+    }
+
+    // Helper methods
+    // --------------------------------------------------------------------
+
+    /**
+     * Sends the same request from every client at once, and returns the results.
+     */
+    private <T> List<T> getConcurrently(String path, Class<T> type) throws InterruptedException, ExecutionException {
+        CountDownLatch startSignal = new CountDownLatch(1);
+        List<Future<T>> futures = new ArrayList<>();
+        for (Client client : clients) {
+            futures.add(executor.submit(() -> {
+                startSignal.await();
+                return client.target(WEB_SERVICE_URI + path).request().get(type);
+            }));
+        }
+        startSignal.countDown();
+
+        List<T> results = new ArrayList<>();
+        for (Future<T> future : futures) {
+            results.add(future.get());
+        }
+        return results;
+    }
+
+    private CacheStatsDTO getCacheStats(String name) {
+        List<CacheStatsDTO> stats = clients.get(0).target(WEB_SERVICE_URI + "/stats/caches").request()
+                .get(new GenericType<List<CacheStatsDTO>>() {
+                });
+        return stats.stream().filter(s -> s.getName().equals(name)).findFirst().orElseThrow(AssertionError::new);
+    }
+
+    private CoalescingStatsDTO getCoalescingStats(String name) {
+        List<CoalescingStatsDTO> stats = clients.get(0).target(WEB_SERVICE_URI + "/stats/coalescing").request()
+                .get(new GenericType<List<CoalescingStatsDTO>>() {
+                });
+        return stats.stream().filter(s -> s.getName().equals(name)).findFirst().orElseThrow(AssertionError::new);
+    }
+
+}
@@ -0,0 +1,188 @@
+package proj.concert.service;
+
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.*;
+
+import proj.concert.common.dto.ConcertDTO;
+import proj.concert.service.services.CatalogCache;
+import proj.concert.service.services.ConcertResource;
+import proj.concert.service.services.PersistenceManager;
+import proj.concert.service.services.SeatAvailabilityManager;
+import proj.concert.service.util.ConcertUtils;
+import proj.concert.service.util.ExpiringCache;
+import proj.concert.service.util.SeatAvailability;
+import proj.concert.service.util.SingleFlight;
+
+import javax.persistence.EntityManager;
+import javax.ws.rs.core.Response;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests that concurrent reads of something that isn't loaded yet share a single load. Whether requests actually
+ * overlap can't be controlled over HTTP, so unlike the integration tests this runs the web service in the same JVM,
+ * and holds the first load's query back until every other reader has joined it. Seats are seeded lazily, so a
+ * performance's seat availability isn't loaded until it is first read.
+ */
+public class CoalescingTest {
+
+    private static final LocalDateTime DATE = LocalDateTime.of(2019, 9, 6, 20, 0, 0);
+    private static final int NUM_THREADS = 16;
+
+    static {
+        // Hibernate reads its settings from the system properties when first loaded, so these must be set before that.
+        System.setProperty("concert.db.profile", "memory");
+        System.setProperty("concert.seed.mode", "lazy");
+        System.setProperty(AvailableSettings.STATEMENT_INSPECTOR, GatedStatementInspector.class.getName());
+    }
+
+    private ExecutorService executor;
+
+    /**
+     * Ensures the DB is in the same state before running each test, with nothing loaded into memory yet.
+     */
+    @Before
+    public void setUp() {
+        PersistenceManager.instance().reset();
+        ConcertUtils.initConcerts();
+        EntityManager em = PersistenceManager.instance().createEntityManager();
+        try {
+            em.getEntityManagerFactory().getCache().evictAll();
+        } finally {
+            em.close();
+        }
+        executor = Executors.newFixedThreadPool(NUM_THREADS);
+    }
+
+    /**
+     * Kills the threads after every test, and stops holding back queries.
+     */
+    @After
+    public void tearDown() {
+        GatedStatementInspector.close();
+        executor.shutdownNow();
+    }
+
+    /**
+     * Fires the same concert request from many threads at once, while the concert isn't cached. Exactly one of them
+     * must load it, and all the others must share that load.
+     */
+    @Test
+    public void testConcurrentConcertReadsShareLoad() throws InterruptedException, ExecutionException {
+        SingleFlight<?, ?> loads = CatalogCache.instance().getCaches().stream()
+                .filter(c -> c.getName().equals("concerts"))
+                .map(ExpiringCache::getLoads)
+                .findFirst()
+                .orElseThrow(AssertionError::new);
+        long loadsBefore = loads.getLoads();
+        long coalescedBefore = loads.getCoalesced();
+        GatedStatementInspector.open("CONCERTS", () -> loads.getCoalesced() - coalescedBefore >= NUM_THREADS - 1);
+
+        List<Response> responses = runConcurrently(() -> new ConcertResource().getConcert(4));
+
+        for (Response response : responses) {
+            assertEquals(Response.Status.OK.getStatusCode(), response.getStatus());
+            assertEquals(4, ((ConcertDTO) response.getEntity()).getId().longValue());
+        }
+        assertEquals(1, loads.getLoads() - loadsBefore);
+        assertEquals(NUM_THREADS - 1, loads.getCoalesced() - coalescedBefore);
+        assertEquals(0, loads.getInFlight());
+    }
+
+    /**
+     * Fires the same seat availability lookup from many threads at once, for a performance that hasn't been loaded.
+     * Exactly one of them must load it, creating its seats, and all the others must share that load.
+     */
+    @Test
+    public void testConcurrentSeatReadsShareLoad() throws InterruptedException, ExecutionException {
+        SingleFlight<?, ?> loads = SeatAvailabilityManager.instance().getLoads().stream()
+                .filter(f -> f.getName().equals("seatAvailability"))
+                .findFirst()
+                .orElseThrow(AssertionError::new);
+        long loadsBefore = loads.getLoads();
+        long coalescedBefore = loads.getCoalesced();
+        GatedStatementInspector.open("SEAT", () -> loads.getCoalesced() - coalescedBefore >= NUM_THREADS - 1);
+
+        List<SeatAvailability> availabilities = runConcurrently(
+                () -> SeatAvailabilityManager.instance().getAvailability(4, DATE));
+
+        for (SeatAvailability availability : availabilities) {
+            assertSame(availabilities.get(0), availability);
+        }
+        assertEquals(120, availabilities.get(0).getCounters().getRemaining());
+        assertEquals(1, loads.getLoads() - loadsBefore);
+        assertEquals(NUM_THREADS - 1, loads.getCoalesced() - coalescedBefore);
+        assertEquals(0, loads.getInFlight());
+    }
+
+    // Helper methods
+    // --------------------------------------------------------------------
+
+    /**
+     * Runs the same call from every thread at once, and returns the results.
+     */
+    private <T> List<T> runConcurrently(Callable<T> call) throws InterruptedException, ExecutionException {
+        CountDownLatch startSignal = new CountDownLatch(1);
+        List<Future<T>> futures = new ArrayList<>();
+        for (int i = 0; i < NUM_THREADS; i++) {
+            futures.add(executor.submit(() -> {
+                startSignal.await();
+                return call.call();
+            }));
+        }
+        startSignal.countDown();
+
+        List<T> results = new ArrayList<>();
+        for (Future<T> future : futures) {
+            results.add(future.get());
+        }
+        return results;
+    }
+
+    /**
+     * Holds back the first query to read from the given table, once opened, until the given condition holds or ten
+     * seconds have passed.
+     */
+    public static class GatedStatementInspector implements StatementInspector {
+
+        private static final long TIMEOUT_MILLIS = 10_000;
+
+        private static volatile String table;
+        private static volatile Callable<Boolean> released;
+
+        static void open(String gatedTable, Callable<Boolean> condition) {
+            released = condition;
+            table = gatedTable;
+        }
+
+        static void close() {
+            table = null;
+            released = null;
+        }
+
+        @Override
+        public String inspect(String sql) {
+            String gatedTable = table;
+            Callable<Boolean> condition = released;
+            if (gatedTable == null || condition == null || !sql.toLowerCase().contains(" from " + gatedTable.toLowerCase() + " ")) {
+                return sql;
+            }
+            close();
+
+            long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+            try {
+                while (!condition.call() && System.currentTimeMillis() < deadline) {
+                    Thread.sleep(1);
+                }
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+            return sql;
+        }
+    }
+}
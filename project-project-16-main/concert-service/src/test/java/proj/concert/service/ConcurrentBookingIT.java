@@ -0,0 +1,188 @@
+package proj.concert.service;
+
+import org.junit.*;
+
+import proj.concert.common.dto.*;
+
+import javax.ws.rs.client.Client;
+import javax.ws.rs.client.ClientBuilder;
+import javax.ws.rs.client.Entity;
+import javax.ws.rs.core.Cookie;
+import javax.ws.rs.core.GenericType;
+import javax.ws.rs.core.Response;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.*;
+
+public class ConcurrentBookingIT {
+
+    private static final String WEB_SERVICE_URI = "http://localhost:10000/services/concert-service";
+    private static final DateTimeFormatter FORMATTER = DateTimeFormatter.ISO_LOCAL_DATE_TIME;
+
+    private static final int NUM_CLIENTS = 16;
+    private static final int BOOKINGS_PER_CLIENT = 25;
+    private static final int MAX_SEATS_PER_BOOKING = 4;
+
+    private static final LocalDateTime DATE_1 = LocalDateTime.of(2019, 9, 12, 20, 0, 0);
+    private static final LocalDateTime DATE_2 = LocalDateTime.of(2019, 9, 14, 20, 0, 0);
+
+    private List<Client> clients;
+    private List<Cookie> authCookies;
+    private ExecutorService executor;
+
+    /**
+     * Ensures the DB is in the same state before running each test, and sets up a client for each thread.
+     */
+    @Before
+    public void setUp() {
+
+        Client client = ClientBuilder.newClient();
+        try {
+            Response response = client
+                    .target(WEB_SERVICE_URI + "-test/reset")
+                    .request().get();
+
+            assertEquals(Response.Status.NO_CONTENT.getStatusCode(), response.getStatus());
+        } finally {
+            client.close();
+        }
+
+        // Only a user's first login hands out a usable cookie, so log each user in once and share their cookie.
+        clients = new ArrayList<>();
+        authCookies = new ArrayList<>();
+        for (int i = 0; i < NUM_CLIENTS; i++) {
+            Client c = ClientBuilder.newClient();
+            if (i < 2) {
+                Response response = login(c, i == 0 ? "testuser" : "testuser2", "pa55word");
+                authCookies.add(response.getCookies().get("auth"));
+                response.close();
+            }
+            clients.add(c);
+        }
+        executor = Executors.newFixedThreadPool(NUM_CLIENTS);
+    }
+
+    /**
+     * Kills the clients and threads after every test.
+     */
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+        for (Client c : clients) {
+            c.close();
+        }
+        clients = null;
+    }
+
+    /**
+     * Fires many overlapping bookings from many threads at once, split over two performances of the same concert.
+     * Every seat that the service reports as successfully booked must have been sold exactly once, and the seats
+     * reported as booked for each date must be exactly those sold, with the remaining-seat count agreeing.
+     */
+    @Test
+    public void testNoSeatIsSoldTwice() throws InterruptedException, ExecutionException {
+
+        CountDownLatch startSignal = new CountDownLatch(1);
+        List<Future<Map<LocalDateTime, List<String>>>> futures = new ArrayList<>();
+
+        for (int i = 0; i < NUM_CLIENTS; i++) {
+            Client client = clients.get(i);
+            Cookie authCookie = authCookies.get(i % 2);
+            Random random = new Random(i);
+            futures.add(executor.submit(() -> {
+                Map<LocalDateTime, List<String>> sold = new HashMap<>();
+                startSignal.await();
+
+                for (int b = 0; b < BOOKINGS_PER_CLIENT; b++) {
+                    LocalDateTime date = random.nextBoolean() ? DATE_1 : DATE_2;
+                    List<String> labels = randomSeats(random);
+
+                    Response response = attemptBooking(client, authCookie, 2, date, labels);
+                    int status = response.getStatus();
+                    response.close();
+
+                    if (status == Response.Status.CREATED.getStatusCode()) {
+                        sold.computeIfAbsent(date, d -> new ArrayList<>()).addAll(labels);
+                    } else {
+                        assertEquals(Response.Status.FORBIDDEN.getStatusCode(), status);
+                    }
+                }
+                return sold;
+            }));
+        }
+
+        startSignal.countDown();
+
+        Map<LocalDateTime, List<String>> allSold = new HashMap<>();
+        for (Future<Map<LocalDateTime, List<String>>> future : futures) {
+            for (Map.Entry<LocalDateTime, List<String>> entry : future.get().entrySet()) {
+                allSold.computeIfAbsent(entry.getKey(), d -> new ArrayList<>()).addAll(entry.getValue());
+            }
+        }
+
+        for (LocalDateTime date : Arrays.asList(DATE_1, DATE_2)) {
+            List<String> sold = allSold.getOrDefault(date, new ArrayList<>());
+            Set<String> uniqueSold = new HashSet<>(sold);
+            assertEquals("A seat was sold more than once on " + date, uniqueSold.size(), sold.size());
+
+            Set<String> booked = getBookedSeats(clients.get(0), date);
+            assertEquals(uniqueSold, booked);
+
+            SeatAvailabilityDTO availability = clients.get(0)
+                    .target(WEB_SERVICE_URI + "/seats/" + FORMATTER.format(date) + "/availability")
+                    .request().get(SeatAvailabilityDTO.class);
+            assertEquals(120 - uniqueSold.size(), availability.getNumSeatsRemaining());
+        }
+    }
+
+    // Helper methods
+    // --------------------------------------------------------------------
+
+    /**
+     * Picks between one and MAX_SEATS_PER_BOOKING distinct seats, concentrated at the front of the theatre so that
+     * bookings collide often.
+     */
+    private static List<String> randomSeats(Random random) {
+        int numSeats = 1 + random.nextInt(MAX_SEATS_PER_BOOKING);
+        Set<String> labels = new LinkedHashSet<>();
+        while (labels.size() < numSeats) {
+            char row = (char) ('A' + random.nextInt(3));
+            int num = 1 + random.nextInt(12);
+            labels.add("" + row + num);
+        }
+        return new ArrayList<>(labels);
+    }
+
+    private static Set<String> getBookedSeats(Client client, LocalDateTime date) {
+        List<SeatDTO> seats = client.target(WEB_SERVICE_URI + "/seats/" + FORMATTER.format(date) + "?status=Booked")
+                .request().get(new GenericType<List<SeatDTO>>() {
+                });
+        return seats.stream().map(SeatDTO::getLabel).collect(Collectors.toSet());
+    }
+
+    /**
+     * Helper method to log us in.
+     */
+    private static Response login(Client client, String username, String password) {
+        UserDTO creds = new UserDTO(username, password);
+        return client.target(WEB_SERVICE_URI + "/login")
+                .request().post(Entity.json(creds));
+    }
+
+    /**
+     * Attempts a booking with the given details on behalf of the user owning the given cookie, and returns the
+     * server's response.
+     */
+    private static Response attemptBooking(Client client, Cookie authCookie, long concertId, LocalDateTime date, List<String> seatLabels) {
+
+        BookingRequestDTO bReq = new BookingRequestDTO(concertId, date, seatLabels);
+
+        // Make booking
+        return client.target(WEB_SERVICE_URI + "/bookings").request().cookie(authCookie).post(Entity.json(bReq));
+    }
+
+}
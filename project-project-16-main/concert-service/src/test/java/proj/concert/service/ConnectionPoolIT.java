@@ -0,0 +1,125 @@
+package proj.concert.service;
+
+import org.junit.*;
+
+import proj.concert.common.dto.*;
+
+import javax.ws.rs.client.Client;
+import javax.ws.rs.client.ClientBuilder;
+import javax.ws.rs.client.Entity;
+import javax.ws.rs.core.Response;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+
+import static org.junit.Assert.*;
+
+public class ConnectionPoolIT {
+
+    private static final String WEB_SERVICE_URI = "http://localhost:10000/services/concert-service";
+    private static final int NUM_CLIENTS = 32;
+
+    private List<Client> clients;
+    private ExecutorService executor;
+
+    /**
+     * Ensures the DB is in the same state before running each test, and sets up a client for each thread.
+     */
+    @Before
+    public void setUp() {
+
+        clients = new ArrayList<>();
+        for (int i = 0; i < NUM_CLIENTS; i++) {
+            clients.add(ClientBuilder.newClient());
+        }
+
+        Response response = clients.get(0)
+                .target(WEB_SERVICE_URI + "-test/reset")
+                .request().get();
+
+        assertEquals(Response.Status.NO_CONTENT.getStatusCode(), response.getStatus());
+        executor = Executors.newFixedThreadPool(NUM_CLIENTS);
+    }
+
+    /**
+     * Kills the clients and threads after every test.
+     */
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+        for (Client c : clients) {
+            c.close();
+        }
+        clients = null;
+    }
+
+    /**
+     * Tests that connections used by a request are handed out by the pool, and given back once the request is done.
+     */
+    @Test
+    public void testConnectionsReturnedAfterRequest() {
+        PoolStatsDTO before = getPoolStats();
+
+        Response response = login(clients.get(0), "testuser", "pa55word");
+        assertEquals(Response.Status.OK.getStatusCode(), response.getStatus());
+        response.close();
+
+        PoolStatsDTO after = getPoolStats();
+        assertEquals(16, after.getMaxSize());
+        assertTrue(after.getAcquired() > before.getAcquired());
+        assertEquals(0, after.getActive());
+        assertEquals(0, after.getPending());
+        assertTrue(after.getIdle() >= 1);
+        assertTrue(after.getIdle() <= after.getMaxSize());
+        assertEquals(0, after.getTimeouts());
+    }
+
+    /**
+     * Fires more requests at once than the pool has connections. Every request must still succeed, by waiting for a
+     * connection rather than failing, and the pool must never open more connections than it allows.
+     */
+    @Test
+    public void testConcurrentRequestsStayWithinPool() throws InterruptedException, ExecutionException {
+        // The first login gives the user their token, which concurrent first logins would race to do.
+        login(clients.get(0), "testuser", "pa55word").close();
+
+        CountDownLatch startSignal = new CountDownLatch(1);
+        List<Future<Integer>> futures = new ArrayList<>();
+        for (Client client : clients) {
+            futures.add(executor.submit(() -> {
+                startSignal.await();
+                Response response = login(client, "testuser", "pa55word");
+                response.close();
+                return response.getStatus();
+            }));
+        }
+        startSignal.countDown();
+
+        for (Future<Integer> future : futures) {
+            assertEquals(Response.Status.OK.getStatusCode(), future.get().intValue());
+        }
+
+        PoolStatsDTO stats = getPoolStats();
+        assertTrue(stats.getAcquired() >= NUM_CLIENTS);
+        assertEquals(0, stats.getActive());
+        assertEquals(0, stats.getPending());
+        assertTrue(stats.getIdle() <= stats.getMaxSize());
+        assertEquals(0, stats.getTimeouts());
+        assertEquals(0, stats.getLeaks());
+        assertTrue(stats.getMaxWaitMillis() <= stats.getTotalWaitMillis());
+    }
+
+    // Helper methods
+    // --------------------------------------------------------------------
+
+    private PoolStatsDTO getPoolStats() {
+        return clients.get(0).target(WEB_SERVICE_URI + "/stats/pool").request().get(PoolStatsDTO.class);
+    }
+
+    private static Response login(Client client, String username, String password) {
+        UserDTO creds = new UserDTO(username, password);
+        return client.target(WEB_SERVICE_URI + "/login")
+                .request().post(Entity.json(creds));
+    }
+
+}
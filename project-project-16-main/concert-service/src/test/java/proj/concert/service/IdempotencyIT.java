@@ -0,0 +1,176 @@
+package proj.concert.service;
+
+import org.junit.*;
+
+import proj.concert.common.dto.*;
+
+import javax.ws.rs.client.Client;
+import javax.ws.rs.client.ClientBuilder;
+import javax.ws.rs.client.Entity;
+import javax.ws.rs.core.GenericType;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.Response;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class IdempotencyIT {
+
+    private static final String WEB_SERVICE_URI = "http://localhost:10000/services/concert-service";
+    private static final LocalDateTime DATE = LocalDateTime.of(2020, 2, 15, 20, 0, 0);
+    private Client client;
+
+    /**
+     * Ensures the DB is in the same state before running each test.
+     */
+    @Before
+    public void setUp() {
+
+        client = ClientBuilder.newClient();
+
+        Response response = client
+                .target(WEB_SERVICE_URI + "-test/reset")
+                .request().get();
+
+        assertEquals(Response.Status.NO_CONTENT.getStatusCode(), response.getStatus());
+    }
+
+    /**
+     * Kills the client after every test, to get rid of any leftover cookies.
+     */
+    @After
+    public void tearDown() {
+        client.close();
+        client = null;
+    }
+
+    /**
+     * Tests that retrying a booking with the same key returns the original booking, rather than a 403 or a second
+     * booking.
+     */
+    @Test
+    public void testRetriedBookingIsReplayed() {
+        login(client, "testuser", "pa55word");
+
+        Response first = attemptBooking("key-1", "C5", "C6");
+        assertEquals(Response.Status.CREATED.getStatusCode(), first.getStatus());
+        BookingDTO original = first.readEntity(BookingDTO.class);
+
+        Response retry = attemptBooking("key-1", "C5", "C6");
+        assertEquals(Response.Status.CREATED.getStatusCode(), retry.getStatus());
+        assertEquals(first.getLocation(), retry.getLocation());
+        assertEquals("true", retry.getHeaderString("Idempotent-Replayed"));
+        for (String header : first.getStringHeaders().keySet()) {
+            if (!header.equalsIgnoreCase(HttpHeaders.DATE) && !header.equalsIgnoreCase(HttpHeaders.CONTENT_LENGTH)) {
+                assertEquals(header, first.getStringHeaders().get(header), retry.getStringHeaders().get(header));
+            }
+        }
+        assertEquals(original.getSeats().size(), retry.readEntity(BookingDTO.class).getSeats().size());
+
+        List<BookingDTO> bookings = client.target(WEB_SERVICE_URI + "/bookings")
+                .request().get(new GenericType<List<BookingDTO>>() {
+                });
+        assertEquals(1, bookings.size());
+
+        // Without a key, the same request is a genuine second attempt at seats which are now taken.
+        Response response = attemptBooking(null, "C5", "C6");
+        assertEquals(Response.Status.FORBIDDEN.getStatusCode(), response.getStatus());
+    }
+
+    /**
+     * Tests that reusing a key for a different request is rejected, and that different keys are independent.
+     */
+    @Test
+    public void testKeyReusedForDifferentRequest() {
+        login(client, "testuser", "pa55word");
+
+        assertEquals(Response.Status.CREATED.getStatusCode(), attemptBooking("key-1", "C5").getStatus());
+        assertEquals(422, attemptBooking("key-1", "C6").getStatus());
+        assertEquals(Response.Status.CREATED.getStatusCode(), attemptBooking("key-2", "C6").getStatus());
+    }
+
+    /**
+     * Tests that failures are replayed too, so a retry sees the same answer as the original request.
+     */
+    @Test
+    public void testFailureIsReplayed() {
+        login(client, "testuser", "pa55word");
+
+        assertEquals(Response.Status.NOT_FOUND.getStatusCode(), attemptBooking("key-1", "Z99").getStatus());
+        Response retry = attemptBooking("key-1", "Z99");
+        assertEquals(Response.Status.NOT_FOUND.getStatusCode(), retry.getStatus());
+        assertEquals("true", retry.getHeaderString("Idempotent-Replayed"));
+    }
+
+    /**
+     * Tests that other mutating endpoints honour the key too, e.g. a retried hold returns the original hold.
+     */
+    @Test
+    public void testRetriedHoldIsReplayed() {
+        login(client, "testuser", "pa55word");
+
+        BookingRequestDTO hReq = new BookingRequestDTO(1, DATE, Arrays.asList("C5", "C6"));
+        Response first = client.target(WEB_SERVICE_URI + "/holds").request()
+                .header("Idempotency-Key", "hold-1").post(Entity.json(hReq));
+        assertEquals(Response.Status.CREATED.getStatusCode(), first.getStatus());
+
+        Response retry = client.target(WEB_SERVICE_URI + "/holds").request()
+                .header("Idempotency-Key", "hold-1").post(Entity.json(hReq));
+        assertEquals(Response.Status.CREATED.getStatusCode(), retry.getStatus());
+        assertEquals(first.readEntity(SeatHoldDTO.class).getId(), retry.readEntity(SeatHoldDTO.class).getId());
+    }
+
+    /**
+     * Tests that logging in is never replayed, even when a key is sent, so every login gets its session cookie.
+     */
+    @Test
+    public void testLoginIsNotRemembered() {
+        login(client, "testuser", "pa55word");
+
+        for (int i = 0; i < 2; i++) {
+            Response response = client.target(WEB_SERVICE_URI + "/login").request()
+                    .header("Idempotency-Key", "login-1")
+                    .post(Entity.json(new UserDTO("testuser", "pa55word")));
+            assertEquals(Response.Status.OK.getStatusCode(), response.getStatus());
+            assertNull(response.getHeaderString("Idempotent-Replayed"));
+            assertNotNull(response.getHeaderString(HttpHeaders.SET_COOKIE));
+            response.close();
+        }
+    }
+
+    /**
+     * Tests that keys sent by clients that aren't logged in are ignored, so anonymous clients can't be given each
+     * other's responses.
+     */
+    @Test
+    public void testKeysIgnoredWhenNotLoggedIn() {
+        for (int i = 0; i < 2; i++) {
+            Response response = attemptBooking("key-1", "C5");
+            assertEquals(Response.Status.UNAUTHORIZED.getStatusCode(), response.getStatus());
+            assertNull(response.getHeaderString("Idempotent-Replayed"));
+            response.close();
+        }
+    }
+
+    // Helper methods
+    // --------------------------------------------------------------------
+
+    private Response attemptBooking(String idempotencyKey, String... seatLabels) {
+        BookingRequestDTO bReq = new BookingRequestDTO(1, DATE, Arrays.asList(seatLabels));
+        return client.target(WEB_SERVICE_URI + "/bookings").request()
+                .header("Idempotency-Key", idempotencyKey)
+                .post(Entity.json(bReq));
+    }
+
+    /**
+     * Helper method to log us in.
+     */
+    private static Response login(Client client, String username, String password) {
+        UserDTO creds = new UserDTO(username, password);
+        return client.target(WEB_SERVICE_URI + "/login")
+                .request().post(Entity.json(creds));
+    }
+
+}
@@ -0,0 +1,112 @@
+package proj.concert.service;
+
+import org.junit.*;
+
+import proj.concert.service.services.PersistenceManager;
+import proj.concert.service.services.SeatAvailabilityManager;
+import proj.concert.service.util.ConcertUtils;
+import proj.concert.service.util.SeatAvailability;
+import proj.concert.service.util.TheatreLayout;
+
+import javax.persistence.EntityManager;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests creating each performance's seats when it is first needed, rather than at startup. The seeding mode is read
+ * once when the web service starts, so unlike the integration tests this runs the web service in the same JVM, with
+ * lazy seeding turned on, against an in-memory database.
+ */
+public class LazySeedingTest {
+
+    private static final LocalDateTime DATE = LocalDateTime.of(2020, 2, 15, 20, 0, 0);
+    private static final int NUM_THREADS = 16;
+
+    static {
+        System.setProperty("concert.db.profile", "memory");
+        System.setProperty("concert.seed.mode", "lazy");
+    }
+
+    private ExecutorService executor;
+
+    /**
+     * Ensures the DB is in the same state before running each test.
+     */
+    @Before
+    public void setUp() {
+        PersistenceManager.instance().reset();
+        ConcertUtils.initConcerts();
+        executor = Executors.newFixedThreadPool(NUM_THREADS);
+    }
+
+    /**
+     * Kills the threads after every test.
+     */
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Fires many first requests for one performance at once. Its seats must be created exactly once, and every request
+     * must get the same bitmap.
+     */
+    @Test
+    public void testConcurrentFirstAccessCreatesSeatsOnce() throws InterruptedException, ExecutionException {
+        assertTrue(ConcertUtils.isLazySeeding());
+        assertEquals(0, countSeats(null));
+
+        CountDownLatch startSignal = new CountDownLatch(1);
+        List<Future<SeatAvailability>> futures = new ArrayList<>();
+        for (int i = 0; i < NUM_THREADS; i++) {
+            futures.add(executor.submit(() -> {
+                startSignal.await();
+                return SeatAvailabilityManager.instance().getAvailability(1, DATE);
+            }));
+        }
+        startSignal.countDown();
+
+        SeatAvailability first = futures.get(0).get();
+        assertNotNull(first);
+        for (Future<SeatAvailability> future : futures) {
+            assertSame(first, future.get());
+        }
+
+        assertEquals(TheatreLayout.NUM_SEATS_IN_THEATRE, countSeats(DATE));
+        assertEquals(TheatreLayout.NUM_SEATS_IN_THEATRE, countSeats(null));
+    }
+
+    /**
+     * Tests that no seats are created for a date on which the concert isn't performed.
+     */
+    @Test
+    public void testUnscheduledPerformanceHasNoSeats() {
+        LocalDateTime unscheduled = LocalDateTime.of(2020, 2, 16, 20, 0, 0);
+
+        assertNull(SeatAvailabilityManager.instance().getAvailability(1, unscheduled));
+        assertEquals(0, countSeats(null));
+    }
+
+    // Helper methods
+    // --------------------------------------------------------------------
+
+    /**
+     * Counts the Seat rows for the given date, or for every date if it is null.
+     */
+    private static long countSeats(LocalDateTime date) {
+        EntityManager em = PersistenceManager.instance().createEntityManager();
+        try {
+            return date == null
+                    ? em.createQuery("select count(s) from Seat s", Long.class).getSingleResult()
+                    : em.createQuery("select count(s) from Seat s where s.date = :date", Long.class)
+                    .setParameter("date", date)
+                    .getSingleResult();
+        } finally {
+            em.close();
+        }
+    }
+}
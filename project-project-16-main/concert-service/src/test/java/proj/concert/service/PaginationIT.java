@@ -0,0 +1,153 @@
+package proj.concert.service;
+
+import org.junit.*;
+
+import proj.concert.common.dto.*;
+
+import javax.ws.rs.client.Client;
+import javax.ws.rs.client.ClientBuilder;
+import javax.ws.rs.client.Entity;
+import javax.ws.rs.core.GenericType;
+import javax.ws.rs.core.Link;
+import javax.ws.rs.core.Response;
+import java.net.URI;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class PaginationIT {
+
+    private static final String WEB_SERVICE_URI = "http://localhost:10000/services/concert-service";
+    private Client client;
+
+    /**
+     * Ensures the DB is in the same state before running each test.
+     */
+    @Before
+    public void setUp() {
+
+        client = ClientBuilder.newClient();
+
+        Response response = client
+                .target(WEB_SERVICE_URI + "-test/reset")
+                .request().get();
+
+        assertEquals(Response.Status.NO_CONTENT.getStatusCode(), response.getStatus());
+    }
+
+    /**
+     * Kills the client after every test, to get rid of any leftover cookies.
+     */
+    @After
+    public void tearDown() {
+        client.close();
+        client = null;
+    }
+
+    /**
+     * Tests that following the next links through the pages of concerts visits every concert once, in order of ID.
+     */
+    @Test
+    public void testConcertPages() {
+        List<ConcertDTO> all = client.target(WEB_SERVICE_URI + "/concerts").request()
+                .get(new GenericType<List<ConcertDTO>>() {
+                });
+
+        List<List<ConcertDTO>> pages = getAllPages(URI.create(WEB_SERVICE_URI + "/concerts?limit=3"),
+                new GenericType<List<ConcertDTO>>() {
+                });
+        assertEquals(3, pages.size());
+        assertEquals(3, pages.get(0).size());
+        assertEquals(2, pages.get(2).size());
+
+        List<Long> ids = new ArrayList<>();
+        pages.forEach(page -> page.forEach(c -> ids.add(c.getId())));
+        assertEquals(all.size(), ids.size());
+        for (int i = 1; i < ids.size(); i++) {
+            assertTrue(ids.get(i) > ids.get(i - 1));
+        }
+
+        // Pages still carry each concert's dates and performers.
+        ConcertDTO concert4 = pages.get(1).get(0);
+        assertEquals(4L, (long) concert4.getId());
+        assertEquals(2, concert4.getDates().size());
+        assertEquals(2, concert4.getPerformers().size());
+    }
+
+    /**
+     * Tests that pages of performers start after the given cursor.
+     */
+    @Test
+    public void testPerformerPages() {
+        List<PerformerDTO> page = client.target(WEB_SERVICE_URI + "/performers?after=9&limit=5").request()
+                .get(new GenericType<List<PerformerDTO>>() {
+                });
+        assertEquals(2, page.size());
+        assertEquals(10L, (long) page.get(0).getId());
+        assertEquals(11L, (long) page.get(1).getId());
+
+        List<List<PerformerDTO>> pages = getAllPages(URI.create(WEB_SERVICE_URI + "/performers?limit=4"),
+                new GenericType<List<PerformerDTO>>() {
+                });
+        assertEquals(3, pages.size());
+        assertEquals(11, pages.stream().mapToInt(List::size).sum());
+    }
+
+    /**
+     * Tests that a user's bookings can be paged through, and that a limit below one is rejected.
+     */
+    @Test
+    public void testBookingPages() {
+        login(client, "testuser", "pa55word");
+        LocalDateTime date = LocalDateTime.of(2020, 2, 15, 20, 0, 0);
+        for (String label : new String[]{"A1", "A2", "A3", "A4", "A5"}) {
+            BookingRequestDTO bReq = new BookingRequestDTO(1, date, Arrays.asList(label));
+            Response response = client.target(WEB_SERVICE_URI + "/bookings").request().post(Entity.json(bReq));
+            assertEquals(Response.Status.CREATED.getStatusCode(), response.getStatus());
+            response.close();
+        }
+
+        List<List<BookingDTO>> pages = getAllPages(URI.create(WEB_SERVICE_URI + "/bookings?limit=2"),
+                new GenericType<List<BookingDTO>>() {
+                });
+        assertEquals(3, pages.size());
+
+        List<String> labels = new ArrayList<>();
+        pages.forEach(page -> page.forEach(b -> b.getSeats().forEach(s -> labels.add(s.getLabel()))));
+        assertEquals(Arrays.asList("A1", "A2", "A3", "A4", "A5"), labels);
+
+        Response response = client.target(WEB_SERVICE_URI + "/bookings?limit=0").request().get();
+        assertEquals(Response.Status.BAD_REQUEST.getStatusCode(), response.getStatus());
+    }
+
+    // Helper methods
+    // --------------------------------------------------------------------
+
+    /**
+     * Fetches the page at the given URI and every page after it, by following the next links.
+     */
+    private <T> List<List<T>> getAllPages(URI uri, GenericType<List<T>> type) {
+        List<List<T>> pages = new ArrayList<>();
+        while (uri != null) {
+            Response response = client.target(uri).request().get();
+            assertEquals(Response.Status.OK.getStatusCode(), response.getStatus());
+            Link next = response.getLink("next");
+            pages.add(response.readEntity(type));
+            uri = next == null ? null : next.getUri();
+        }
+        return pages;
+    }
+
+    /**
+     * Helper method to log us in.
+     */
+    private static Response login(Client client, String username, String password) {
+        UserDTO creds = new UserDTO(username, password);
+        return client.target(WEB_SERVICE_URI + "/login")
+                .request().post(Entity.json(creds));
+    }
+
+}
@@ -0,0 +1,113 @@
+package proj.concert.service;
+
+import org.junit.*;
+
+import proj.concert.common.dto.*;
+
+import javax.ws.rs.client.Client;
+import javax.ws.rs.client.ClientBuilder;
+import javax.ws.rs.client.Entity;
+import javax.ws.rs.core.Response;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class SeatBitmapIT {
+
+    private static final String WEB_SERVICE_URI = "http://localhost:10000/services/concert-service";
+    private static final LocalDateTime DATE = LocalDateTime.of(2020, 2, 15, 20, 0, 0);
+    private Client client;
+
+    /**
+     * Ensures the DB is in the same state before running each test.
+     */
+    @Before
+    public void setUp() {
+
+        client = ClientBuilder.newClient();
+
+        Response response = client
+                .target(WEB_SERVICE_URI + "-test/reset")
+                .request().get();
+
+        assertEquals(Response.Status.NO_CONTENT.getStatusCode(), response.getStatus());
+    }
+
+    /**
+     * Kills the client after every test, to get rid of any leftover cookies.
+     */
+    @After
+    public void tearDown() {
+        client.close();
+        client = null;
+    }
+
+    /**
+     * Tests that the bitmap has one bit per seat in layout order, set for exactly the seats that are taken.
+     */
+    @Test
+    public void testBitmapMarksTakenSeats() {
+        SeatBitmapDTO bitmap = getBitmap();
+        assertEquals(1, bitmap.getConcertId());
+        assertEquals(DATE, bitmap.getDate());
+        assertEquals(10, bitmap.getNumRows());
+        assertEquals(12, bitmap.getNumSeatsPerRow());
+        assertEquals(Arrays.asList(), takenSeatLabels(bitmap));
+
+        login(client, "testuser", "pa55word");
+        BookingRequestDTO bReq = new BookingRequestDTO(1, DATE, Arrays.asList("A1", "C5", "J12"));
+        Response response = client.target(WEB_SERVICE_URI + "/bookings").request().post(Entity.json(bReq));
+        assertEquals(Response.Status.CREATED.getStatusCode(), response.getStatus());
+        response.close();
+
+        bitmap = getBitmap();
+        assertEquals(Arrays.asList("A1", "C5", "J12"), takenSeatLabels(bitmap));
+
+        // 120 seats fit in 15 bytes, which is 20 characters of base64.
+        assertEquals(20, bitmap.getBitmap().length());
+    }
+
+    /**
+     * Tests that there is no bitmap for a date on which no concert is scheduled.
+     */
+    @Test
+    public void testNoBitmapForUnscheduledDate() {
+        Response response = client.target(WEB_SERVICE_URI + "/seats/2019-01-01T20:00:00/bitmap").request().get();
+        assertEquals(Response.Status.NOT_FOUND.getStatusCode(), response.getStatus());
+    }
+
+    // Helper methods
+    // --------------------------------------------------------------------
+
+    private SeatBitmapDTO getBitmap() {
+        return client.target(WEB_SERVICE_URI + "/seats/2020-02-15T20:00:00/bitmap").request().get(SeatBitmapDTO.class);
+    }
+
+    /**
+     * Decodes the bitmap into the labels of the taken seats.
+     */
+    private static List<String> takenSeatLabels(SeatBitmapDTO bitmap) {
+        byte[] bytes = Base64.getDecoder().decode(bitmap.getBitmap());
+        List<String> labels = new ArrayList<>();
+        for (int i = 0; i < bitmap.getNumRows() * bitmap.getNumSeatsPerRow(); i++) {
+            if ((bytes[i / 8] & (1 << (i % 8))) != 0) {
+                labels.add("" + (char) ('A' + i / bitmap.getNumSeatsPerRow()) + (i % bitmap.getNumSeatsPerRow() + 1));
+            }
+        }
+        return labels;
+    }
+
+    /**
+     * Helper method to log us in.
+     */
+    private static Response login(Client client, String username, String password) {
+        UserDTO creds = new UserDTO(username, password);
+        return client.target(WEB_SERVICE_URI + "/login")
+                .request().post(Entity.json(creds));
+    }
+
+}
@@ -0,0 +1,135 @@
+package proj.concert.service;
+
+import org.junit.*;
+
+import proj.concert.common.dto.*;
+
+import javax.ws.rs.client.Client;
+import javax.ws.rs.client.ClientBuilder;
+import javax.ws.rs.client.Entity;
+import javax.ws.rs.core.Response;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class SeatConflictIT {
+
+    private static final String WEB_SERVICE_URI = "http://localhost:10000/services/concert-service";
+    private static final LocalDateTime DATE = LocalDateTime.of(2020, 2, 15, 20, 0, 0);
+    private Client client;
+
+    /**
+     * Ensures the DB is in the same state before running each test.
+     */
+    @Before
+    public void setUp() {
+
+        client = ClientBuilder.newClient();
+
+        Response response = client
+                .target(WEB_SERVICE_URI + "-test/reset")
+                .request().get();
+
+        assertEquals(Response.Status.NO_CONTENT.getStatusCode(), response.getStatus());
+    }
+
+    /**
+     * Kills the client after every test, to get rid of any leftover cookies.
+     */
+    @After
+    public void tearDown() {
+        client.close();
+        client = null;
+    }
+
+    /**
+     * Tests that a conflicting request for adjacent seats is offered the nearest free block of the same size.
+     */
+    @Test
+    public void testConflictSuggestsNearestBlock() {
+        login(client, "testuser", "pa55word");
+        assertEquals(Response.Status.CREATED.getStatusCode(), attemptBooking("C5", "C6").getStatus());
+
+        SeatConflictDTO conflict = attemptConflictingBooking("C6", "C7");
+        assertEquals(Arrays.asList("C6"), conflict.getConflictingSeatLabels());
+        assertEquals(Arrays.asList("C7", "C8"), conflict.getSuggestedSeatLabels());
+
+        // The suggestion can be booked straight away.
+        assertEquals(Response.Status.CREATED.getStatusCode(),
+                attemptBooking(conflict.getSuggestedSeatLabels().toArray(new String[0])).getStatus());
+    }
+
+    /**
+     * Tests that when the request isn't for a block of seats, only the taken seats are replaced.
+     */
+    @Test
+    public void testConflictReplacesTakenSeats() {
+        login(client, "testuser", "pa55word");
+        assertEquals(Response.Status.CREATED.getStatusCode(), attemptBooking("B2").getStatus());
+
+        SeatConflictDTO conflict = attemptConflictingBooking("B2", "D9");
+        assertEquals(Arrays.asList("B2"), conflict.getConflictingSeatLabels());
+        assertEquals(Arrays.asList("B1", "D9"), conflict.getSuggestedSeatLabels());
+    }
+
+    /**
+     * Tests that nothing is suggested once the price band has no free seats left, and that holds report conflicts in
+     * the same way.
+     */
+    @Test
+    public void testNoSuggestionWhenPriceBandIsFull() {
+        login(client, "testuser", "pa55word");
+
+        List<String> silverSeats = new ArrayList<>();
+        for (char row = 'I'; row <= 'J'; row++) {
+            for (int num = 1; num <= 12; num++) {
+                silverSeats.add("" + row + num);
+            }
+        }
+        assertEquals(Response.Status.CREATED.getStatusCode(),
+                attemptBooking(silverSeats.subList(0, 23).toArray(new String[0])).getStatus());
+
+        SeatConflictDTO conflict = attemptConflictingBooking("J11");
+        assertEquals(Arrays.asList("J12"), conflict.getSuggestedSeatLabels());
+
+        assertEquals(Response.Status.CREATED.getStatusCode(), attemptBooking("J12").getStatus());
+
+        BookingRequestDTO hReq = new BookingRequestDTO(1, DATE, Arrays.asList("J12"));
+        Response response = client.target(WEB_SERVICE_URI + "/holds").request().post(Entity.json(hReq));
+        assertEquals(Response.Status.FORBIDDEN.getStatusCode(), response.getStatus());
+        conflict = response.readEntity(SeatConflictDTO.class);
+        assertEquals(Arrays.asList("J12"), conflict.getConflictingSeatLabels());
+        assertEquals(Collections.emptyList(), conflict.getSuggestedSeatLabels());
+    }
+
+    // Helper methods
+    // --------------------------------------------------------------------
+
+    private SeatConflictDTO attemptConflictingBooking(String... seatLabels) {
+        Response response = attemptBooking(seatLabels);
+        assertEquals(Response.Status.FORBIDDEN.getStatusCode(), response.getStatus());
+        return response.readEntity(SeatConflictDTO.class);
+    }
+
+    /**
+     * Attempts a booking for concert 1, and returns the server's response. Should already be logged in.
+     */
+    private Response attemptBooking(String... seatLabels) {
+        BookingRequestDTO bReq = new BookingRequestDTO(1, DATE, Arrays.asList(seatLabels));
+        return client.target(WEB_SERVICE_URI + "/bookings").request().post(Entity.json(bReq));
+    }
+
+    /**
+     * Helper method to log us in.
+     */
+    private static Response login(Client client, String username, String password) {
+        UserDTO creds = new UserDTO(username, password);
+        return client.target(WEB_SERVICE_URI + "/login")
+                .request().post(Entity.json(creds));
+    }
+
+}
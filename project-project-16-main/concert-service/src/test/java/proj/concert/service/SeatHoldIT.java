@@ -0,0 +1,192 @@
+package proj.concert.service;
+
+import org.junit.*;
+
+import proj.concert.common.dto.*;
+
+import javax.ws.rs.client.Client;
+import javax.ws.rs.client.ClientBuilder;
+import javax.ws.rs.client.Entity;
+import javax.ws.rs.core.GenericType;
+import javax.ws.rs.core.Response;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class SeatHoldIT {
+
+    private static final String WEB_SERVICE_URI = "http://localhost:10000/services/concert-service";
+    private static final LocalDateTime DATE = LocalDateTime.of(2020, 2, 15, 20, 0, 0);
+    private Client client;
+
+    /**
+     * Ensures the DB is in the same state before running each test.
+     */
+    @Before
+    public void setUp() {
+
+        client = ClientBuilder.newClient();
+
+        Response response = client
+                .target(WEB_SERVICE_URI + "-test/reset")
+                .request().get();
+
+        assertEquals(Response.Status.NO_CONTENT.getStatusCode(), response.getStatus());
+    }
+
+    /**
+     * Kills the client after every test, to get rid of any leftover cookies.
+     */
+    @After
+    public void tearDown() {
+        client.close();
+        client = null;
+    }
+
+    /**
+     * Tests that held seats are reported as unavailable, and can't be booked or held by anyone else.
+     */
+    @Test
+    public void testHeldSeatsAreUnavailable() {
+        login(client, "testuser", "pa55word");
+
+        Response response = attemptHold(client, 0, "C5", "C6");
+        assertEquals(Response.Status.CREATED.getStatusCode(), response.getStatus());
+        SeatHoldDTO hold = response.readEntity(SeatHoldDTO.class);
+        assertEquals(Arrays.asList("C5", "C6"), hold.getSeatLabels());
+        assertTrue(hold.getExpiresInSeconds() > 0);
+
+        assertEquals(2, getBookedSeats().size());
+        assertEquals(118, getAvailability().getNumSeatsRemaining());
+
+        Client user2Client = ClientBuilder.newClient();
+        try {
+            login(user2Client, "testuser2", "pa55word");
+
+            response = attemptBooking(user2Client, "C6", "C7");
+            assertEquals(Response.Status.FORBIDDEN.getStatusCode(), response.getStatus());
+
+            response = attemptHold(user2Client, 0, "C5");
+            assertEquals(Response.Status.FORBIDDEN.getStatusCode(), response.getStatus());
+
+            // Someone else's hold can't be released.
+            response = user2Client.target(WEB_SERVICE_URI + "/holds/" + hold.getId()).request().delete();
+            assertEquals(Response.Status.FORBIDDEN.getStatusCode(), response.getStatus());
+        } finally {
+            user2Client.close();
+        }
+    }
+
+    /**
+     * Tests that releasing a hold makes its seats available again.
+     */
+    @Test
+    public void testReleaseHold() {
+        login(client, "testuser", "pa55word");
+
+        SeatHoldDTO hold = attemptHold(client, 0, "C5", "C6").readEntity(SeatHoldDTO.class);
+
+        Response response = client.target(WEB_SERVICE_URI + "/holds/" + hold.getId()).request().delete();
+        assertEquals(Response.Status.NO_CONTENT.getStatusCode(), response.getStatus());
+
+        assertEquals(0, getBookedSeats().size());
+        assertEquals(120, getAvailability().getNumSeatsRemaining());
+
+        response = client.target(WEB_SERVICE_URI + "/holds/" + hold.getId()).request().delete();
+        assertEquals(Response.Status.NOT_FOUND.getStatusCode(), response.getStatus());
+    }
+
+    /**
+     * Tests that a hold is released automatically once its TTL has passed, and can't be extended afterwards.
+     */
+    @Test
+    public void testHoldExpires() throws InterruptedException {
+        login(client, "testuser", "pa55word");
+
+        SeatHoldDTO hold = attemptHold(client, 1, "C5", "C6").readEntity(SeatHoldDTO.class);
+        assertEquals(2, getBookedSeats().size());
+
+        Thread.sleep(2000);
+
+        assertEquals(0, getBookedSeats().size());
+        assertEquals(120, getAvailability().getNumSeatsRemaining());
+
+        Response response = client.target(WEB_SERVICE_URI + "/holds/" + hold.getId() + "?ttl=60")
+                .request().put(Entity.json(""));
+        assertEquals(Response.Status.NOT_FOUND.getStatusCode(), response.getStatus());
+    }
+
+    /**
+     * Tests that a hold can be turned into a booking, which then shows up among the user's bookings.
+     */
+    @Test
+    public void testBookHeldSeats() {
+        login(client, "testuser", "pa55word");
+
+        SeatHoldDTO hold = attemptHold(client, 30, "C5", "C6").readEntity(SeatHoldDTO.class);
+
+        Response response = client.target(WEB_SERVICE_URI + "/holds/" + hold.getId() + "?ttl=60")
+                .request().put(Entity.json(""));
+        assertEquals(Response.Status.OK.getStatusCode(), response.getStatus());
+        assertTrue(response.readEntity(SeatHoldDTO.class).getExpiresInSeconds() > 30);
+
+        response = client.target(WEB_SERVICE_URI + "/holds/" + hold.getId() + "/booking")
+                .request().post(Entity.json(""));
+        assertEquals(Response.Status.CREATED.getStatusCode(), response.getStatus());
+
+        BookingDTO booking = client.target(response.getLocation()).request().get(BookingDTO.class);
+        booking.getSeats().sort(Comparator.comparing(SeatDTO::getLabel));
+        assertEquals("C5", booking.getSeats().get(0).getLabel());
+        assertEquals("C6", booking.getSeats().get(1).getLabel());
+
+        assertEquals(118, getAvailability().getNumSeatsRemaining());
+
+        // The hold is used up.
+        response = client.target(WEB_SERVICE_URI + "/holds/" + hold.getId() + "/booking")
+                .request().post(Entity.json(""));
+        assertEquals(Response.Status.NOT_FOUND.getStatusCode(), response.getStatus());
+    }
+
+    // Helper methods
+    // --------------------------------------------------------------------
+
+    private List<SeatDTO> getBookedSeats() {
+        return client.target(WEB_SERVICE_URI + "/seats/2020-02-15T20:00:00?status=Booked")
+                .request().get(new GenericType<List<SeatDTO>>() {
+                });
+    }
+
+    private SeatAvailabilityDTO getAvailability() {
+        return client.target(WEB_SERVICE_URI + "/seats/2020-02-15T20:00:00/availability")
+                .request().get(SeatAvailabilityDTO.class);
+    }
+
+    /**
+     * Helper method to log us in.
+     */
+    private static Response login(Client client, String username, String password) {
+        UserDTO creds = new UserDTO(username, password);
+        return client.target(WEB_SERVICE_URI + "/login")
+                .request().post(Entity.json(creds));
+    }
+
+    /**
+     * Attempts to hold the given seats for concert 1, and returns the server's response. Should already be logged in.
+     */
+    private static Response attemptHold(Client client, long ttlSeconds, String... seatLabels) {
+        BookingRequestDTO hReq = new BookingRequestDTO(1, DATE, Arrays.asList(seatLabels));
+        return client.target(WEB_SERVICE_URI + "/holds?ttl=" + ttlSeconds).request().post(Entity.json(hReq));
+    }
+
+    /**
+     * Attempts a booking for concert 1, and returns the server's response. Should already be logged in.
+     */
+    private static Response attemptBooking(Client client, String... seatLabels) {
+        BookingRequestDTO bReq = new BookingRequestDTO(1, DATE, Arrays.asList(seatLabels));
+        return client.target(WEB_SERVICE_URI + "/bookings").request().post(Entity.json(bReq));
+    }
+
+}
@@ -0,0 +1,144 @@
+package proj.concert.service;
+
+import org.junit.*;
+
+import proj.concert.common.dto.*;
+
+import javax.ws.rs.client.Client;
+import javax.ws.rs.client.ClientBuilder;
+import javax.ws.rs.client.Entity;
+import javax.ws.rs.core.EntityTag;
+import javax.ws.rs.core.GenericType;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.Response;
+import java.net.URI;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class SeatVersionIT {
+
+    private static final String WEB_SERVICE_URI = "http://localhost:10000/services/concert-service";
+    private static final String SEATS_URI = WEB_SERVICE_URI + "/seats/2020-02-15T20:00:00?status=Booked";
+    private static final LocalDateTime DATE = LocalDateTime.of(2020, 2, 15, 20, 0, 0);
+    private Client client;
+
+    /**
+     * Ensures the DB is in the same state before running each test.
+     */
+    @Before
+    public void setUp() {
+
+        client = ClientBuilder.newClient();
+
+        Response response = client
+                .target(WEB_SERVICE_URI + "-test/reset")
+                .request().get();
+
+        assertEquals(Response.Status.NO_CONTENT.getStatusCode(), response.getStatus());
+    }
+
+    /**
+     * Kills the client after every test, to get rid of any leftover cookies.
+     */
+    @After
+    public void tearDown() {
+        client.close();
+        client = null;
+    }
+
+    /**
+     * Tests that a client with the current tag for a performance's seats gets 304, without the database being
+     * queried.
+     */
+    @Test
+    public void testUnchangedSeatsNotModified() {
+        EntityTag tag = getTag(SEATS_URI);
+        assertNotNull(tag);
+        assertFalse(tag.isWeak());
+
+        QueryStatsDTO before = getQueryStats();
+        Response response = client.target(SEATS_URI).request().header(HttpHeaders.IF_NONE_MATCH, tag).get();
+        assertEquals(Response.Status.NOT_MODIFIED.getStatusCode(), response.getStatus());
+        assertEquals(tag, response.getEntityTag());
+        response.close();
+        QueryStatsDTO after = getQueryStats();
+
+        assertEquals(0, after.getStatements() - before.getStatements());
+    }
+
+    /**
+     * Tests that booking and cancelling seats each move the tag on, and that the old tag then gets the new seats.
+     */
+    @Test
+    public void testBookingAndCancellationChangeTag() {
+        EntityTag original = getTag(SEATS_URI);
+
+        login(client, "testuser", "pa55word");
+        BookingRequestDTO bReq = new BookingRequestDTO(1, DATE, Arrays.asList("A1", "A2"));
+        Response response = client.target(WEB_SERVICE_URI + "/bookings").request().post(Entity.json(bReq));
+        assertEquals(Response.Status.CREATED.getStatusCode(), response.getStatus());
+        URI bookingUri = response.getLocation();
+        response.close();
+
+        response = client.target(SEATS_URI).request().header(HttpHeaders.IF_NONE_MATCH, original).get();
+        assertEquals(Response.Status.OK.getStatusCode(), response.getStatus());
+        EntityTag booked = response.getEntityTag();
+        assertNotEquals(original, booked);
+        List<SeatDTO> seats = response.readEntity(new GenericType<List<SeatDTO>>() {
+        });
+        assertEquals(2, seats.size());
+
+        response = client.target(bookingUri).request().delete();
+        assertEquals(Response.Status.NO_CONTENT.getStatusCode(), response.getStatus());
+        response.close();
+
+        EntityTag cancelled = getTag(SEATS_URI);
+        assertNotEquals(booked, cancelled);
+        assertNotEquals(original, cancelled);
+    }
+
+    /**
+     * Tests that performances on different dates have their own tags, so a booking for one doesn't change the other.
+     */
+    @Test
+    public void testTagIsPerPerformance() {
+        String otherSeatsUri = WEB_SERVICE_URI + "/seats/2019-09-12T20:00:00?status=Booked";
+        EntityTag other = getTag(otherSeatsUri);
+
+        login(client, "testuser", "pa55word");
+        BookingRequestDTO bReq = new BookingRequestDTO(1, DATE, Arrays.asList("B3"));
+        client.target(WEB_SERVICE_URI + "/bookings").request().post(Entity.json(bReq)).close();
+
+        Response response = client.target(otherSeatsUri).request().header(HttpHeaders.IF_NONE_MATCH, other).get();
+        assertEquals(Response.Status.NOT_MODIFIED.getStatusCode(), response.getStatus());
+        response.close();
+    }
+
+    // Helper methods
+    // --------------------------------------------------------------------
+
+    private EntityTag getTag(String uri) {
+        Response response = client.target(uri).request().get();
+        assertEquals(Response.Status.OK.getStatusCode(), response.getStatus());
+        EntityTag tag = response.getEntityTag();
+        response.close();
+        return tag;
+    }
+
+    private QueryStatsDTO getQueryStats() {
+        return client.target(WEB_SERVICE_URI + "/stats/queries").request().get(QueryStatsDTO.class);
+    }
+
+    /**
+     * Helper method to log us in.
+     */
+    private static Response login(Client client, String username, String password) {
+        UserDTO creds = new UserDTO(username, password);
+        return client.target(WEB_SERVICE_URI + "/login")
+                .request().post(Entity.json(creds));
+    }
+
+}
@@ -0,0 +1,126 @@
+package proj.concert.service;
+
+import org.junit.*;
+
+import proj.concert.common.dto.*;
+
+import javax.ws.rs.client.Client;
+import javax.ws.rs.client.ClientBuilder;
+import javax.ws.rs.client.Entity;
+import javax.ws.rs.core.GenericType;
+import javax.ws.rs.core.Response;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class SecondLevelCacheIT {
+
+    private static final String WEB_SERVICE_URI = "http://localhost:10000/services/concert-service";
+    private Client client;
+
+    /**
+     * Ensures the DB is in the same state before running each test.
+     */
+    @Before
+    public void setUp() {
+
+        client = ClientBuilder.newClient();
+
+        Response response = client
+                .target(WEB_SERVICE_URI + "-test/reset")
+                .request().get();
+
+        assertEquals(Response.Status.NO_CONTENT.getStatusCode(), response.getStatus());
+    }
+
+    /**
+     * Kills the client after every test, to get rid of any leftover cookies.
+     */
+    @After
+    public void tearDown() {
+        client.close();
+        client = null;
+    }
+
+    /**
+     * Tests that concerts and performers loaded once are found in the second-level cache afterwards, without going
+     * back to the database.
+     */
+    @Test
+    public void testEntitiesComeFromSecondLevelCache() {
+        getConcerts("/concerts");
+        client.target(WEB_SERVICE_URI + "/performers").request().get().close();
+
+        QueryStatsDTO before = getQueryStats();
+        ConcertDTO concert = client.target(WEB_SERVICE_URI + "/concerts/4").request().get(ConcertDTO.class);
+        PerformerDTO performer = client.target(WEB_SERVICE_URI + "/performers/3").request().get(PerformerDTO.class);
+        QueryStatsDTO after = getQueryStats();
+
+        assertEquals(2, concert.getDates().size());
+        assertEquals(2, concert.getPerformers().size());
+        assertEquals(3, performer.getId().longValue());
+        assertEquals(0, after.getStatements() - before.getStatements());
+        assertTrue(after.getSecondLevelCacheHits() > before.getSecondLevelCacheHits());
+    }
+
+    /**
+     * Tests that a repeated catalog query is answered from the query cache, and that a change to a concert is still
+     * seen straight away.
+     */
+    @Test
+    public void testCatalogQueriesComeFromQueryCache() {
+        getConcerts("/concerts?limit=3");
+
+        QueryStatsDTO before = getQueryStats();
+        List<ConcertDTO> concerts = getConcerts("/concerts?limit=3");
+        QueryStatsDTO after = getQueryStats();
+
+        assertEquals(3, concerts.size());
+        assertEquals(0, after.getStatements() - before.getStatements());
+        assertTrue(after.getQueryCacheHits() > before.getQueryCacheHits());
+
+        ConcertDTO concert = client.target(WEB_SERVICE_URI + "/concerts/1").request().get(ConcertDTO.class);
+        concert.setTitle("PTX Live");
+        Response response = client.target(WEB_SERVICE_URI + "/concerts/1").request().put(Entity.json(concert));
+        assertEquals(Response.Status.OK.getStatusCode(), response.getStatus());
+        response.close();
+
+        assertEquals("PTX Live", getConcerts("/concerts?limit=3").get(0).getTitle());
+    }
+
+    /**
+     * Tests that the second-level cache's regions are reported along with the web service's other caches.
+     */
+    @Test
+    public void testRegionsAreReported() {
+        getConcerts("/concerts?limit=3");
+        getConcerts("/concerts?limit=3");
+
+        List<CacheStatsDTO> stats = client.target(WEB_SERVICE_URI + "/stats/caches").request()
+                .get(new GenericType<List<CacheStatsDTO>>() {
+                });
+
+        CacheStatsDTO concerts = stats.stream().filter(s -> s.getName().equals("catalog.concerts"))
+                .findFirst().orElseThrow(AssertionError::new);
+        CacheStatsDTO queries = stats.stream().filter(s -> s.getName().equals("catalog.queries"))
+                .findFirst().orElseThrow(AssertionError::new);
+
+        assertTrue(concerts.getSize() >= 3);
+        assertTrue(concerts.getHits() >= 3);
+        assertTrue(queries.getHits() >= 1);
+        assertEquals(200, queries.getMaxEntries());
+    }
+
+    // Helper methods
+    // --------------------------------------------------------------------
+
+    private List<ConcertDTO> getConcerts(String path) {
+        return client.target(WEB_SERVICE_URI + path).request().get(new GenericType<List<ConcertDTO>>() {
+        });
+    }
+
+    private QueryStatsDTO getQueryStats() {
+        return client.target(WEB_SERVICE_URI + "/stats/queries").request().get(QueryStatsDTO.class);
+    }
+
+}
@@ -0,0 +1,164 @@
+package proj.concert.service.benchmark;
+
+import org.junit.Test;
+
+import proj.concert.service.domain.Booking;
+import proj.concert.service.domain.Seat;
+import proj.concert.service.util.DatabaseProfile;
+import proj.concert.service.util.TheatreLayout;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.Persistence;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Measures booking throughput against each {@link DatabaseProfile}, with one thread booking at a time and with several
+ * booking at once.
+ * <p>
+ * Each booking is made the way the service makes one: in a transaction, two seats for a performance are looked up by
+ * label, marked as booked, and a booking for them is persisted. Each thread books its own performances, so bookings
+ * never conflict and the time measured is the database's. Every round books fresh performances seeded beforehand, and
+ * the median of several rounds is reported. The file profiles write to target/benchmark.
+ * <p>
+ * This isn't run as part of the build. Run it with:
+ * <pre>
+ * mvn -pl concert-common,concert-service test -Dtest=BookingThroughputBenchmark -Dsurefire.failIfNoSpecifiedTests=false
+ * </pre>
+ * The mvstore profile's tuning can be changed with the concert.db.* system properties described in DatabaseProfile.
+ */
+public class BookingThroughputBenchmark {
+
+    private static final int[] THREADS = {1, 8};
+    private static final int PERFORMANCES_PER_THREAD = 4;
+    private static final int SEATS_PER_BOOKING = 2;
+    private static final LocalDateTime FIRST_DATE = LocalDateTime.of(2021, 1, 1, 20, 0);
+    private static final int WARMUP_ROUNDS = 3;
+    private static final int ROUNDS = 5;
+
+    @Test
+    public void benchmarkBookings() throws Exception {
+        System.out.printf("%10s %8s %20s%n", "profile", "threads", "bookings/s");
+
+        for (DatabaseProfile profile : DatabaseProfile.values()) {
+            EntityManagerFactory emf = createDatabase(profile);
+            try {
+                int[] nextDate = {0};
+                for (int threads : THREADS) {
+                    double[] rates = new double[ROUNDS];
+                    for (int round = -WARMUP_ROUNDS; round < ROUNDS; round++) {
+                        List<List<LocalDateTime>> performances = new ArrayList<>();
+                        for (int t = 0; t < threads; t++) {
+                            List<LocalDateTime> dates = new ArrayList<>();
+                            for (int p = 0; p < PERFORMANCES_PER_THREAD; p++) {
+                                LocalDateTime date = FIRST_DATE.plusDays(nextDate[0]++);
+                                seed(emf, date);
+                                dates.add(date);
+                            }
+                            performances.add(dates);
+                        }
+
+                        double rate = book(emf, performances);
+                        if (round >= 0) {
+                            rates[round] = rate;
+                        }
+                    }
+                    Arrays.sort(rates);
+                    System.out.printf("%10s %8d %20.0f%n", profile.name().toLowerCase(), threads, rates[ROUNDS / 2]);
+                }
+            } finally {
+                emf.close();
+            }
+        }
+    }
+
+    /*
+    Books every seat of the given performances, each thread booking one list of them, and returns how many bookings
+    were made per second.
+     */
+    private static double book(EntityManagerFactory emf, List<List<LocalDateTime>> performances) throws Exception {
+        ExecutorService workers = Executors.newFixedThreadPool(performances.size());
+        try {
+            long start = System.nanoTime();
+            List<Future<Integer>> results = new ArrayList<>();
+            for (List<LocalDateTime> dates : performances) {
+                results.add(workers.submit(() -> {
+                    int bookings = 0;
+                    for (LocalDateTime date : dates) {
+                        for (int i = 0; i < TheatreLayout.NUM_SEATS_IN_THEATRE; i += SEATS_PER_BOOKING) {
+                            List<String> labels = new ArrayList<>();
+                            for (int j = i; j < i + SEATS_PER_BOOKING; j++) {
+                                labels.add(TheatreLayout.labelOf(j));
+                            }
+                            bookSeats(emf, date, labels);
+                            bookings++;
+                        }
+                    }
+                    return bookings;
+                }));
+            }
+
+            int bookings = 0;
+            for (Future<Integer> result : results) {
+                bookings += result.get();
+            }
+            return bookings / ((System.nanoTime() - start) / 1_000_000_000.0);
+        } finally {
+            workers.shutdownNow();
+        }
+    }
+
+    private static void bookSeats(EntityManagerFactory emf, LocalDateTime date, List<String> labels) {
+        EntityManager em = emf.createEntityManager();
+        try {
+            em.getTransaction().begin();
+            List<Seat> seats = em
+                    .createQuery("select s from Seat s where s.date = :date and s.label in :labels", Seat.class)
+                    .setParameter("date", date)
+                    .setParameter("labels", labels)
+                    .getResultList();
+            for (Seat seat : seats) {
+                seat.setBooked(true);
+            }
+            Booking booking = new Booking(1, date, new HashSet<>(seats));
+            booking.setUserId(1);
+            em.persist(booking);
+            em.getTransaction().commit();
+        } finally {
+            em.close();
+        }
+    }
+
+    private static void seed(EntityManagerFactory emf, LocalDateTime date) {
+        EntityManager em = emf.createEntityManager();
+        try {
+            em.getTransaction().begin();
+            for (Seat seat : TheatreLayout.createSeatsFor(date)) {
+                em.persist(seat);
+            }
+            em.getTransaction().commit();
+        } finally {
+            em.close();
+        }
+    }
+
+    private static EntityManagerFactory createDatabase(DatabaseProfile profile) {
+        String name = profile == DatabaseProfile.MEMORY
+                ? "booking-benchmark"
+                : "./target/benchmark/booking-" + profile.name().toLowerCase();
+
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("javax.persistence.jdbc.url", profile.getUrl(name));
+        properties.put("hibernate.generate_statistics", "false");
+        return Persistence.createEntityManagerFactory("proj.concert", properties);
+    }
+}
@@ -0,0 +1,114 @@
+package proj.concert.service.benchmark;
+
+import org.junit.Test;
+
+import proj.concert.service.domain.Booking;
+import proj.concert.service.domain.Seat;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.Persistence;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Measures how many rows per second can be inserted through Hibernate as the number of IDs reserved per round trip to
+ * an entity's sequence grows. An allocation size of 1 is how IDs were generated before entities had their own pooled
+ * sequences: one sequence call for every row.
+ * <p>
+ * Each allocation size gets a fresh in-memory database. The inserts timed are:
+ * <ul>
+ *     <li>bookings: bookings of two seats each, fifty bookings to a transaction, as when many users book at once</li>
+ *     <li>seats: a whole performance of seats per transaction, as when seats are seeded</li>
+ * </ul>
+ * This isn't run as part of the build. Run it with:
+ * <pre>
+ * mvn -pl concert-common,concert-service test -Dtest=IdGenerationBenchmark -Dsurefire.failIfNoSpecifiedTests=false
+ * </pre>
+ */
+public class IdGenerationBenchmark {
+
+    private static final int[] ALLOCATION_SIZES = {1, 10, 50, 120, 500};
+    private static final LocalDateTime DATE = LocalDateTime.of(2020, 2, 14, 20, 0);
+    private static final int BOOKINGS_PER_TRANSACTION = 50;
+    private static final int SEATS_PER_PERFORMANCE = 120;
+    private static final int WARMUP_ITERATIONS = 5;
+    private static final int ITERATIONS = 21;
+
+    @Test
+    public void benchmarkInserts() {
+        System.out.printf("%16s %18s %18s%n", "allocation size", "bookings (rows/s)", "seats (rows/s)");
+
+        for (int allocationSize : ALLOCATION_SIZES) {
+            EntityManagerFactory emf = createDatabase(allocationSize);
+            try {
+                int[] next = {0};
+                double bookings = time(emf, BOOKINGS_PER_TRANSACTION * 3, em -> {
+                    for (int i = 0; i < BOOKINGS_PER_TRANSACTION; i++) {
+                        Set<Seat> seats = new HashSet<>();
+                        seats.add(new Seat("B" + next[0]++, true, DATE, BigDecimal.TEN));
+                        seats.add(new Seat("B" + next[0]++, true, DATE, BigDecimal.TEN));
+                        Booking booking = new Booking(1, DATE, seats);
+                        booking.setUserId(1);
+                        em.persist(booking);
+                    }
+                });
+
+                int[] performance = {0};
+                double seats = time(emf, SEATS_PER_PERFORMANCE, em -> {
+                    LocalDateTime date = DATE.plusDays(++performance[0]);
+                    for (int i = 0; i < SEATS_PER_PERFORMANCE; i++) {
+                        em.persist(new Seat("S" + i, false, date, BigDecimal.TEN));
+                    }
+                });
+
+                System.out.printf("%16d %18.0f %18.0f%n", allocationSize, bookings, seats);
+            } finally {
+                emf.close();
+            }
+        }
+    }
+
+    /*
+    Returns the median number of rows per second inserted by a transaction running the given work, which inserts the
+    given number of rows.
+     */
+    private static double time(EntityManagerFactory emf, int rows, Work work) {
+        long[] times = new long[ITERATIONS];
+        for (int i = -WARMUP_ITERATIONS; i < ITERATIONS; i++) {
+            EntityManager em = emf.createEntityManager();
+            try {
+                long start = System.nanoTime();
+                em.getTransaction().begin();
+                work.run(em);
+                em.getTransaction().commit();
+                if (i >= 0) {
+                    times[i] = System.nanoTime() - start;
+                }
+            } finally {
+                em.close();
+            }
+        }
+        Arrays.sort(times);
+        return rows / (times[ITERATIONS / 2] / 1_000_000_000.0);
+    }
+
+    private static EntityManagerFactory createDatabase(int allocationSize) {
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("javax.persistence.jdbc.url", "jdbc:h2:mem:id-benchmark-" + allocationSize + ";DB_CLOSE_DELAY=-1");
+        properties.put("hibernate.generate_statistics", "false");
+        properties.put("hibernate.cache.use_second_level_cache", "false");
+        properties.put("concert.id.allocationSize", String.valueOf(allocationSize));
+        properties.put("concert.id.sequence.SEAT_SEQ.allocationSize", String.valueOf(allocationSize));
+        return Persistence.createEntityManagerFactory("proj.concert", properties);
+    }
+
+    private interface Work {
+        void run(EntityManager em);
+    }
+}
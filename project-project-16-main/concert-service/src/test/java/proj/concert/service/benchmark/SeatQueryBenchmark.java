@@ -0,0 +1,187 @@
+package proj.concert.service.benchmark;
+
+import org.hibernate.Session;
+import org.junit.Test;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.Persistence;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Measures the seat queries made against the database as the number of seats per performance grows from the 120 in
+ * our theatre to 50,000, both with the Seat table's (date, isBooked) and (label, date) indexes and without them.
+ * <p>
+ * Each size gets a fresh in-memory database holding three performances of that many seats, a tenth of them booked.
+ * The queries timed are:
+ * <ul>
+ *     <li>booked: the booked seats for a date, with the status filtered by the database</li>
+ *     <li>filtered: every seat for a date, with the status filtered in Java as it used to be</li>
+ *     <li>by label: ten seats for a date looked up by label, as when a booking is made</li>
+ * </ul>
+ * This isn't run as part of the build. Run it with:
+ * <pre>
+ * mvn -pl concert-common,concert-service test -Dtest=SeatQueryBenchmark -Dsurefire.failIfNoSpecifiedTests=false
+ * </pre>
+ */
+public class SeatQueryBenchmark {
+
+    private static final int[] SEATS_PER_DATE = {120, 1_000, 10_000, 50_000};
+    private static final LocalDateTime[] DATES = {
+            LocalDateTime.of(2020, 2, 14, 20, 0),
+            LocalDateTime.of(2020, 2, 15, 20, 0),
+            LocalDateTime.of(2020, 2, 16, 20, 0)
+    };
+    private static final int WARMUP_ITERATIONS = 10;
+    private static final int ITERATIONS = 50;
+
+    @Test
+    public void benchmarkSeatQueries() {
+        System.out.printf("%10s %8s %14s %14s %14s%n", "seats", "indexes", "booked (ms)", "filtered (ms)", "by label (ms)");
+
+        for (int numSeats : SEATS_PER_DATE) {
+            EntityManagerFactory emf = createDatabase(numSeats);
+            try {
+                seed(emf, numSeats);
+                printRow(emf, numSeats, "yes");
+                dropIndexes(emf);
+                printRow(emf, numSeats, "no");
+            } finally {
+                emf.close();
+            }
+        }
+    }
+
+    private static void printRow(EntityManagerFactory emf, int numSeats, String indexes) {
+        LocalDateTime date = DATES[1];
+        List<String> labels = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            labels.add(labelOf(numSeats * i / 10));
+        }
+
+        double booked = time(emf, em -> em
+                .createQuery("select s.label from Seat s where s.date = :date and s.isBooked = true", String.class)
+                .setParameter("date", date)
+                .getResultList()
+                .size());
+
+        double filtered = time(emf, em -> {
+            int count = 0;
+            for (Object[] seat : em
+                    .createQuery("select s.label, s.isBooked from Seat s where s.date = :date", Object[].class)
+                    .setParameter("date", date)
+                    .getResultList()) {
+                if ((Boolean) seat[1]) {
+                    count++;
+                }
+            }
+            return count;
+        });
+
+        double byLabel = time(emf, em -> em
+                .createQuery("select s from Seat s where s.date = :date and s.label in :labels")
+                .setParameter("date", date)
+                .setParameter("labels", labels)
+                .getResultList()
+                .size());
+
+        System.out.printf("%10d %8s %14.3f %14.3f %14.3f%n", numSeats, indexes, booked, filtered, byLabel);
+    }
+
+    /*
+    Returns the median time, in milliseconds, that the given query takes.
+     */
+    private static double time(EntityManagerFactory emf, Query query) {
+        EntityManager em = emf.createEntityManager();
+        try {
+            for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+                query.run(em);
+                em.clear();
+            }
+
+            long[] times = new long[ITERATIONS];
+            for (int i = 0; i < ITERATIONS; i++) {
+                long start = System.nanoTime();
+                query.run(em);
+                times[i] = System.nanoTime() - start;
+                em.clear();
+            }
+            Arrays.sort(times);
+            return times[ITERATIONS / 2] / 1_000_000.0;
+        } finally {
+            em.close();
+        }
+    }
+
+    private static EntityManagerFactory createDatabase(int numSeats) {
+        Map<String, Object> properties = new HashMap<>();
+        // H2 would otherwise hand back the previous result of a repeated query against unchanged data without running it.
+        properties.put("javax.persistence.jdbc.url",
+                "jdbc:h2:mem:seat-benchmark-" + numSeats + ";DB_CLOSE_DELAY=-1;OPTIMIZE_REUSE_RESULTS=FALSE");
+        properties.put("hibernate.generate_statistics", "false");
+        return Persistence.createEntityManagerFactory("proj.concert", properties);
+    }
+
+    private static void seed(EntityManagerFactory emf, int numSeats) {
+        EntityManager em = emf.createEntityManager();
+        try {
+            em.getTransaction().begin();
+            em.unwrap(Session.class).doWork(connection -> {
+                try (PreparedStatement insert = connection.prepareStatement(
+                        "insert into Seat (id, version, isBooked, date, label, price, bookingStatus) values (?, 0, ?, ?, ?, 100, 0)")) {
+                    long id = 1;
+                    for (LocalDateTime date : DATES) {
+                        for (int i = 0; i < numSeats; i++) {
+                            insert.setLong(1, id++);
+                            insert.setBoolean(2, i % 10 == 0);
+                            insert.setTimestamp(3, Timestamp.valueOf(date));
+                            insert.setString(4, labelOf(i));
+                            insert.addBatch();
+                            if (i % 1000 == 999) {
+                                insert.executeBatch();
+                            }
+                        }
+                        insert.executeBatch();
+                    }
+                }
+                try (Statement analyze = connection.createStatement()) {
+                    analyze.execute("ANALYZE");
+                }
+            });
+            em.getTransaction().commit();
+        } finally {
+            em.close();
+        }
+    }
+
+    private static void dropIndexes(EntityManagerFactory emf) {
+        EntityManager em = emf.createEntityManager();
+        try {
+            em.getTransaction().begin();
+            em.createNativeQuery("drop index SEAT_DATE_BOOKED_IDX").executeUpdate();
+            em.createNativeQuery("drop index SEAT_LABEL_DATE_IDX").executeUpdate();
+            em.getTransaction().commit();
+        } finally {
+            em.close();
+        }
+    }
+
+    /*
+    Labels seats in rows of 100, so that labels stay unique however many seats there are.
+     */
+    private static String labelOf(int index) {
+        return "R" + (index / 100) + "-" + (index % 100 + 1);
+    }
+
+    private interface Query {
+        int run(EntityManager em);
+    }
+}